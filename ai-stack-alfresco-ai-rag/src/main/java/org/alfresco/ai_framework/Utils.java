@@ -48,6 +48,24 @@ public class Utils {
         return TokenTextSplitter.builder().build().apply(documentText);
     }
 
+    /**
+     * Computes the cosine similarity of two vectors.
+     *
+     * @param a first vector
+     * @param b second vector
+     * @return cosine similarity, 0 if the vectors differ in length or one of them is zero
+     */
+    public static double cosineSimilarity(float[] a, float[] b) {
+        if (a.length != b.length) return 0;
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
     /**
      * Creates a Resource from the MultipartFile.
      *
@@ -0,0 +1,86 @@
+package org.alfresco.ai_framework.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Creates one {@link Bulkhead} per workload calling Ollama or the classification pipeline,
+ * so interactive chat, tagging and ingestion embeddings each have their own concurrency budget,
+ * and the {@link CircuitBreaker} of the classification pipeline.
+ */
+@Configuration
+public class AdmissionConfiguration {
+
+    /**
+     * Bulkhead of the /chat and /chat/stream requests.
+     *
+     * @param maxConcurrent number of chat requests answered at the same time
+     * @param maxQueue number of chat requests allowed to wait
+     * @param maxWait how long a chat request waits before it is rejected
+     * @param meterRegistry registry exposing the bulkhead metrics
+     * @return chat bulkhead
+     */
+    @Bean
+    public Bulkhead chatBulkhead(@Value("${ai.admission.chat.max-concurrent:2}") int maxConcurrent,
+                                 @Value("${ai.admission.chat.max-queue:16}") int maxQueue,
+                                 @Value("${ai.admission.chat.max-wait:PT20S}") Duration maxWait,
+                                 MeterRegistry meterRegistry) {
+        return new Bulkhead("chat", maxConcurrent, maxQueue, maxWait, meterRegistry);
+    }
+
+    /**
+     * Bulkhead of the calls to the classification pipeline.
+     *
+     * @param maxConcurrent number of documents classified at the same time
+     * @param maxQueue number of tagging requests allowed to wait
+     * @param maxWait how long a tagging request waits before it is rejected
+     * @param meterRegistry registry exposing the bulkhead metrics
+     * @return tagging bulkhead
+     */
+    @Bean
+    public Bulkhead tagBulkhead(@Value("${ai.admission.tag.max-concurrent:1}") int maxConcurrent,
+                                @Value("${ai.admission.tag.max-queue:8}") int maxQueue,
+                                @Value("${ai.admission.tag.max-wait:PT30S}") Duration maxWait,
+                                MeterRegistry meterRegistry) {
+        return new Bulkhead("tag", maxConcurrent, maxQueue, maxWait, meterRegistry);
+    }
+
+    /**
+     * Circuit breaker of the calls to the classification pipeline, failing tagging requests fast while
+     * the pipeline is down instead of letting them wait for connection or read timeouts.
+     *
+     * @param failureThreshold number of consecutive failed pipeline calls opening the circuit
+     * @param openDuration how long tagging requests are rejected before a trial call is made
+     * @param meterRegistry registry exposing the circuit breaker metrics
+     * @return tagging circuit breaker
+     */
+    @Bean
+    public CircuitBreaker tagCircuitBreaker(
+            @Value("${ai.admission.tag.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${ai.admission.tag.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+                                            MeterRegistry meterRegistry) {
+        return new CircuitBreaker("tag", failureThreshold, openDuration, meterRegistry);
+    }
+
+    /**
+     * Bulkhead of the embedding requests sent while ingesting documents. Query embeddings of chat requests
+     * are not counted against it.
+     *
+     * @param maxConcurrent number of ingestion embedding requests admitted at the same time
+     * @param maxQueue number of ingestion embedding requests allowed to wait
+     * @param maxWait how long an ingestion embedding request waits before it is rejected
+     * @param meterRegistry registry exposing the bulkhead metrics
+     * @return ingestion embedding bulkhead
+     */
+    @Bean
+    public Bulkhead ingestionBulkhead(@Value("${ai.admission.ingestion.max-concurrent:2}") int maxConcurrent,
+                                      @Value("${ai.admission.ingestion.max-queue:32}") int maxQueue,
+                                      @Value("${ai.admission.ingestion.max-wait:PT2M}") Duration maxWait,
+                                      MeterRegistry meterRegistry) {
+        return new Bulkhead("ingestion", maxConcurrent, maxQueue, maxWait, meterRegistry);
+    }
+}
@@ -0,0 +1,35 @@
+package org.alfresco.ai_framework.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns bulkhead and circuit breaker rejections into fast HTTP responses with a Retry-After header:
+ * 429 Too Many Requests when the wait queue is full, 503 Service Unavailable when the wait timed out
+ * or the circuit is open.
+ */
+@Slf4j
+@RestControllerAdvice
+public class AdmissionExceptionHandler {
+
+    /**
+     * Handles a rejected request.
+     *
+     * @param e the rejection
+     * @return 429 or 503 with Retry-After in seconds
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> handleRejection(AdmissionRejectedException e) {
+        HttpStatus status = e.getReason() == AdmissionRejectedException.Reason.QUEUE_FULL
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        log.warn("Rejected {} request with {}: {}", e.getWorkload(), status.value(), e.getReason());
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                .body(e.getMessage());
+    }
+}
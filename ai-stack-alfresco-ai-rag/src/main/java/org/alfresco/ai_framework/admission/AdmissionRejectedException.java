@@ -0,0 +1,47 @@
+package org.alfresco.ai_framework.admission;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a {@link Bulkhead} does not admit a request, either because its wait queue is full
+ * or because no permit was released within the maximum wait time, or when a {@link CircuitBreaker}
+ * rejects a request to a failing backend.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    /**
+     * Reasons of a rejection.
+     */
+    public enum Reason { QUEUE_FULL, WAIT_TIMEOUT, CIRCUIT_OPEN }
+
+    private final String workload;
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    /**
+     * Constructs the exception.
+     *
+     * @param workload name of the bulkhead or circuit breaker
+     * @param reason why the request was rejected
+     * @param retryAfter estimated time after which a retry is likely to be admitted
+     */
+    public AdmissionRejectedException(String workload, Reason reason, Duration retryAfter) {
+        super("Request rejected by the " + workload
+                + (reason == Reason.CIRCUIT_OPEN ? " circuit breaker: " : " bulkhead: ") + reason);
+        this.workload = workload;
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getWorkload() {
+        return workload;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,272 @@
+package org.alfresco.ai_framework.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent calls of one workload to a backend, with a bounded wait queue.
+ * A request arriving when the queue is full, or waiting longer than the maximum wait time,
+ * is rejected at once with an {@link AdmissionRejectedException}, so an overloaded backend
+ * does not slow down every caller until HTTP timeouts fire.
+ * Permits are acquired either by blocking the calling thread, or without blocking through {@link #acquireAsync()}.
+ * Both kinds of callers wait in the same queue and are given the released permits in arrival order; a caller
+ * arriving while others wait queues behind them even if a permit is free at that moment.
+ */
+@Slf4j
+public class Bulkhead {
+
+    private final String workload;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private final AtomicInteger available;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+    private final Counter queueFull;
+    private final Counter waitTimeout;
+
+    /**
+     * Creates the bulkhead and registers its metrics in the given meter registry.
+     *
+     * @param workload name of the workload, used as the metric tag
+     * @param maxConcurrent number of calls admitted at the same time
+     * @param maxQueue number of calls allowed to wait for a permit
+     * @param maxWait how long a call waits for a permit before it is rejected
+     * @param meterRegistry registry exposing queue depth, active calls, wait time and rejections
+     */
+    public Bulkhead(String workload, int maxConcurrent, int maxQueue, Duration maxWait, MeterRegistry meterRegistry) {
+        this.workload = workload;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.available = new AtomicInteger(maxConcurrent);
+        Gauge.builder("ai.admission.queue.depth", waiting, AtomicInteger::get)
+                .tag("workload", workload)
+                .register(meterRegistry);
+        Gauge.builder("ai.admission.active", available, free -> maxConcurrent - free.get())
+                .tag("workload", workload)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("ai.admission.wait").tag("workload", workload).register(meterRegistry);
+        this.holdTimer = Timer.builder("ai.admission.hold").tag("workload", workload).register(meterRegistry);
+        this.queueFull = Counter.builder("ai.admission.rejected")
+                .tag("workload", workload).tag("reason", "queue_full").register(meterRegistry);
+        this.waitTimeout = Counter.builder("ai.admission.rejected")
+                .tag("workload", workload).tag("reason", "wait_timeout").register(meterRegistry);
+        log.info("Bulkhead {} initialized, max concurrent: {}, max queue: {}, max wait: {}",
+                workload, maxConcurrent, maxQueue, maxWait);
+    }
+
+    /**
+     * Waits for a permit, failing fast when the queue is full.
+     *
+     * @return permit to be closed when the call to the backend ends
+     * @throws AdmissionRejectedException if the queue is full or no permit was released in time
+     */
+    public Permit acquire() {
+        return acquire(maxWait);
+    }
+
+    /**
+     * Waits for a permit at most the given time, or the configured maximum wait if it is shorter,
+     * failing fast when the queue is full.
+     *
+     * @param maxWait longest wait acceptable to the caller
+     * @return permit to be closed when the call to the backend ends
+     * @throws AdmissionRejectedException if the queue is full or no permit was released in time
+     */
+    public Permit acquire(Duration maxWait) {
+        Duration wait = maxWait.compareTo(this.maxWait) < 0 ? maxWait : this.maxWait;
+        CompletableFuture<Permit> permit = enqueue();
+        try {
+            return permit.get(Math.max(0, wait.toNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (permit.cancel(false)) {
+                waitTimeout.increment();
+                throw new AdmissionRejectedException(workload,
+                        AdmissionRejectedException.Reason.WAIT_TIMEOUT, retryAfter());
+            }
+            // Granted while the wait was timing out
+            return permit.join();
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false)) {
+                permit.join().close();
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the " + workload + " bulkhead", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to wait for the " + workload + " bulkhead", e.getCause());
+        }
+    }
+
+    /**
+     * Waits for a permit without blocking the calling thread, failing fast when the queue is full.
+     *
+     * @return Mono emitting the permit to be closed when the call to the backend ends, failing with an
+     * {@link AdmissionRejectedException} if the queue is full or no permit was released in time
+     */
+    public Mono<Permit> acquireAsync() {
+        return Mono.defer(() -> {
+            CompletableFuture<Permit> permit;
+            try {
+                permit = enqueue();
+            } catch (AdmissionRejectedException e) {
+                return Mono.error(e);
+            }
+            // Cancelling the Mono cancels the future, which takes the caller out of the queue
+            return Mono.fromFuture(permit)
+                    .timeout(maxWait, Mono.error(() -> {
+                        waitTimeout.increment();
+                        return new AdmissionRejectedException(workload,
+                                AdmissionRejectedException.Reason.WAIT_TIMEOUT, retryAfter());
+                    }))
+                    // A permit granted while the wait was being cancelled is given back
+                    .doOnDiscard(Permit.class, Permit::close);
+        });
+    }
+
+    /**
+     * Takes a free permit if nobody is waiting, or queues the caller.
+     *
+     * @return future completed with the permit, already completed if a permit was free
+     * @throws AdmissionRejectedException if the queue is full
+     */
+    private CompletableFuture<Permit> enqueue() {
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && available.get() > 0) {
+                available.decrementAndGet();
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return CompletableFuture.completedFuture(new Permit(System.nanoTime()));
+            }
+            if (waiters.size() >= maxQueue) {
+                queueFull.increment();
+                throw new AdmissionRejectedException(workload,
+                        AdmissionRejectedException.Reason.QUEUE_FULL, retryAfter());
+            }
+            Waiter waiter = new Waiter(System.nanoTime());
+            waiters.add(waiter);
+            waiting.incrementAndGet();
+            waiter.permit.whenComplete((permit, failure) -> {
+                if (failure != null) leave(waiter);
+            });
+            return waiter.permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a caller that stopped waiting out of the queue.
+     *
+     * @param waiter caller whose wait timed out or was cancelled
+     */
+    private void leave(Waiter waiter) {
+        lock.lock();
+        try {
+            if (waiters.remove(waiter)) {
+                waiting.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit and gives the free permits to the waiting callers, oldest first. The callers are
+     * completed outside the lock, as an asynchronous caller continues its work in the completing thread.
+     */
+    private void release() {
+        List<Waiter> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            available.incrementAndGet();
+            Waiter waiter;
+            while (available.get() > 0 && (waiter = waiters.poll()) != null) {
+                available.decrementAndGet();
+                waiting.decrementAndGet();
+                granted.add(waiter);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter waiter : granted) {
+            if (waiter.permit.complete(new Permit(System.nanoTime()))) {
+                waitTimer.record(System.nanoTime() - waiter.enqueuedNanos, TimeUnit.NANOSECONDS);
+            } else {
+                // The caller stopped waiting in the meantime, the permit goes to the next one
+                release();
+            }
+        }
+    }
+
+    /**
+     * Estimates when a retry is likely to be admitted: the mean time a permit is held, times the number
+     * of calls ahead in the queue per permit, and at least one second.
+     *
+     * @return suggested retry delay
+     */
+    Duration retryAfter() {
+        double meanHoldSeconds = holdTimer.mean(TimeUnit.SECONDS);
+        double seconds = meanHoldSeconds * (waiting.get() + 1) / maxConcurrent;
+        return Duration.ofSeconds(Math.max(1, (long) Math.ceil(seconds)));
+    }
+
+    public String getWorkload() {
+        return workload;
+    }
+
+    /**
+     * Admission to the backend, released once when closed.
+     */
+    public class Permit implements AutoCloseable {
+
+        private final long acquiredNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long acquiredNanos) {
+            this.acquiredNanos = acquiredNanos;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                holdTimer.record(System.nanoTime() - acquiredNanos, TimeUnit.NANOSECONDS);
+                release();
+            }
+        }
+    }
+
+    /**
+     * A caller waiting for a permit, settled once: granted a permit, or cancelled when it stops waiting.
+     */
+    private static class Waiter {
+
+        private final CompletableFuture<Permit> permit = new CompletableFuture<>();
+        private final long enqueuedNanos;
+
+        Waiter(long enqueuedNanos) {
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.alfresco.ai_framework.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Stops calling a backend after consecutive failures. Once the configured number of calls in a row failed,
+ * the circuit opens and calls are rejected at once with an {@link AdmissionRejectedException}, so requests
+ * do not wait for timeouts of a backend that is down. After the open duration a single trial call is let
+ * through: its success closes the circuit, its failure opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * States of the circuit, published as the ordinal of the state.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String workload;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    private final Counter rejected;
+    private final Counter opened;
+
+    /**
+     * Creates the circuit breaker and registers its metrics in the given meter registry.
+     *
+     * @param workload name of the workload, used as the metric tag
+     * @param failureThreshold number of consecutive failures opening the circuit
+     * @param openDuration how long calls are rejected before a trial call is let through
+     * @param meterRegistry registry exposing the state, openings and rejections
+     */
+    public CircuitBreaker(String workload, int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this.workload = workload;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        Gauge.builder("ai.admission.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .tag("workload", workload)
+                .register(meterRegistry);
+        this.opened = Counter.builder("ai.admission.circuit.opened").tag("workload", workload).register(meterRegistry);
+        this.rejected = Counter.builder("ai.admission.rejected")
+                .tag("workload", workload).tag("reason", "circuit_open").register(meterRegistry);
+        log.info("Circuit breaker {} initialized, failure threshold: {}, open duration: {}",
+                workload, failureThreshold, openDuration);
+    }
+
+    /**
+     * Admits a call unless the circuit is open. An admitted call has to be ended with {@link #onSuccess},
+     * {@link #onFailure} or {@link #onIgnored}.
+     *
+     * @throws AdmissionRejectedException if the circuit is open or a trial call is already running
+     */
+    public synchronized void acquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDuration.toNanos()) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            log.info("Circuit breaker {} half-open, letting a trial call through", workload);
+        }
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return;
+        }
+        rejected.increment();
+        throw new AdmissionRejectedException(workload, AdmissionRejectedException.Reason.CIRCUIT_OPEN, retryAfter());
+    }
+
+    /**
+     * Records a successful call, closing the circuit.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit breaker {} closed", workload);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a call failed because of the backend, opening the circuit after too many failures in a row
+     * or after a failed trial call.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            opened.increment();
+            log.warn("Circuit breaker {} opened after {} consecutive failure(s), rejecting calls for {}",
+                    workload, consecutiveFailures, openDuration);
+        }
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a call that ended without telling anything about the backend, e.g. cancelled or rejected
+     * for a reason of its own, so a trial call can be made again.
+     */
+    public synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Estimates when a retry is likely to be admitted: the rest of the open duration, and at least one second.
+     *
+     * @return suggested retry delay
+     */
+    private Duration retryAfter() {
+        long remainingNanos = state == State.OPEN ? openDuration.toNanos() - (System.nanoTime() - openedAtNanos) : 0;
+        return Duration.ofSeconds(Math.max(1, (long) Math.ceil(remainingNanos / 1e9)));
+    }
+}
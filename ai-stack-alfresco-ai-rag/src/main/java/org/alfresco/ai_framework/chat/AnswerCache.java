@@ -0,0 +1,186 @@
+package org.alfresco.ai_framework.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.Utils;
+import org.alfresco.ai_framework.ingestion.DocumentIndexChangedEvent;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of generated chat answers. An answer is reused when a new query retrieves exactly the same chunks
+ * and its embedding is at least as similar to the cached query as the configured threshold.
+ * Answers citing a document are dropped as soon as the document or its folder changes in the vector index.
+ */
+@Slf4j
+@Component
+public class AnswerCache {
+
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final Cache<Set<String>, List<CachedAnswer>> answers;
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    /**
+     * Creates the cache and registers its metrics in the given meter registry.
+     *
+     * @param enabled whether answers are cached
+     * @param similarityThreshold minimal cosine similarity between the new and the cached query embedding
+     * @param maxEntries maximum number of cached retrieval results
+     * @param ttl how long an answer is reused after it was generated
+     * @param meterRegistry registry exposing hit, miss, invalidation and size metrics
+     */
+    public AnswerCache(@Value("${ai.chat.answer-cache.enabled:true}") boolean enabled,
+                       @Value("${ai.chat.answer-cache.similarity-threshold:0.97}") double similarityThreshold,
+                       @Value("${ai.chat.answer-cache.max-entries:1000}") long maxEntries,
+                       @Value("${ai.chat.answer-cache.ttl:PT24H}") Duration ttl,
+                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.answers = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = Counter.builder("ai.chat.answer-cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("ai.chat.answer-cache.misses").register(meterRegistry);
+        this.invalidations = Counter.builder("ai.chat.answer-cache.invalidations").register(meterRegistry);
+        Gauge.builder("ai.chat.answer-cache.size", answers, Cache::estimatedSize).register(meterRegistry);
+        log.info("Answer cache {}, similarity threshold: {}, max entries: {}, ttl: {}",
+                enabled ? "enabled" : "disabled", similarityThreshold, maxEntries, ttl);
+    }
+
+    /**
+     * Returns the current version of the cache, to be taken before retrieval and passed to
+     * {@link #put}, so answers generated from a context changed in the meantime are not cached.
+     *
+     * @return current version
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Looks up an answer generated for the same retrieved chunks and a similar query.
+     *
+     * @param context retrieved context of the new query
+     * @return cached answer, or null on a miss
+     */
+    public String get(RetrievedContext context) {
+        if (!enabled || context.documents().isEmpty() || context.queryEmbedding() == null) {
+            return null;
+        }
+        List<CachedAnswer> candidates = answers.getIfPresent(chunkIds(context.documents()));
+        if (candidates != null) {
+            for (CachedAnswer candidate : candidates) {
+                double similarity = Utils.cosineSimilarity(candidate.queryEmbedding(), context.queryEmbedding());
+                if (similarity >= similarityThreshold) {
+                    hits.increment();
+                    return candidate.answer();
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches an answer generated from the given context. Answers without retrieved chunks are not cached,
+     * as any newly ingested document could make them answerable, nor answers to queries that were not embedded.
+     *
+     * @param context retrieved context the answer was generated from
+     * @param answer generated answer
+     * @param retrievalVersion version taken before the context was retrieved
+     */
+    public void put(RetrievedContext context, String answer, long retrievalVersion) {
+        if (!enabled || context.documents().isEmpty() || context.queryEmbedding() == null
+                || answer == null || answer.isBlank()) {
+            return;
+        }
+        CachedAnswer cachedAnswer = new CachedAnswer(context.queryEmbedding(), answer,
+                metadataValues(context.documents(), "documentId"), metadataValues(context.documents(), "folderId"));
+        answers.asMap().compute(chunkIds(context.documents()), (key, cached) -> {
+            if (version.get() != retrievalVersion) {
+                return cached;
+            }
+            List<CachedAnswer> updated = cached != null ? new ArrayList<>(cached) : new ArrayList<>(1);
+            updated.add(cachedAnswer);
+            return List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Drops the answers citing chunks of a changed document or folder.
+     *
+     * @param event change of the vector index
+     */
+    @EventListener
+    public void onDocumentIndexChanged(DocumentIndexChangedEvent event) {
+        version.incrementAndGet();
+        AtomicLong dropped = new AtomicLong();
+        answers.asMap().replaceAll((key, cached) -> {
+            List<CachedAnswer> kept = cached.stream()
+                    .filter(answer -> !answer.cites(event.key(), event.value()))
+                    .toList();
+            dropped.addAndGet(cached.size() - kept.size());
+            return kept;
+        });
+        answers.asMap().values().removeIf(List::isEmpty);
+        if (dropped.get() > 0) {
+            invalidations.increment(dropped.get());
+            log.debug("Dropped {} cached answer(s) citing {}: {}", dropped.get(), event.key(), event.value());
+        }
+    }
+
+    private static Set<String> chunkIds(List<Document> documents) {
+        Set<String> ids = new HashSet<>(documents.size() * 2);
+        for (Document document : documents) {
+            ids.add(document.getId());
+        }
+        return Set.copyOf(ids);
+    }
+
+    private static Set<String> metadataValues(List<Document> documents, String key) {
+        Set<String> values = new HashSet<>();
+        for (Document document : documents) {
+            Object value = document.getMetadata().get(key);
+            if (value != null) values.add(value.toString());
+        }
+        return Set.copyOf(values);
+    }
+
+    /**
+     * A generated answer.
+     *
+     * @param queryEmbedding embedding of the query the answer was generated for
+     * @param answer generated answer
+     * @param documentIds IDs of the cited documents
+     * @param folderIds IDs of the folders of the cited documents
+     */
+    private record CachedAnswer(float[] queryEmbedding, String answer, Set<String> documentIds, Set<String> folderIds) {
+
+        boolean cites(String key, String value) {
+            return switch (key) {
+                case "documentId" -> documentIds.contains(value);
+                case "folderId" -> folderIds.contains(value);
+                default -> false;
+            };
+        }
+    }
+}
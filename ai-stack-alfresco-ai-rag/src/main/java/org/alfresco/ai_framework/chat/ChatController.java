@@ -2,15 +2,21 @@ package org.alfresco.ai_framework.chat;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.ai.chat.client.advisor.QuestionAnswerAdvisor;
 import org.springframework.ai.chat.model.ChatResponse;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -25,24 +31,59 @@ import java.util.stream.Collectors;
 @RestController
 public class ChatController {
 
+    /**
+     * Response header telling whether the answer was served from the answer cache.
+     */
+    static final String ANSWER_CACHE_HEADER = "X-Answer-Cache";
+
+    /**
+     * Response header with the number of prompt tokens saved by packing the context, absent for cached answers.
+     */
+    static final String CONTEXT_TOKENS_SAVED_HEADER = "X-Context-Tokens-Saved";
+
+    /**
+     * Response header with the ID used to cancel a stream with {@code DELETE /chat/stream/{streamId}}.
+     */
+    static final String STREAM_ID_HEADER = "X-Stream-Id";
+
+    /**
+     * Request header with the time in milliseconds within which the client expects the answer.
+     */
+    static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
     private final ChatService chatService;
+    private final StreamCancellations streamCancellations;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, StreamCancellations streamCancellations) {
         this.chatService = chatService;
+        this.streamCancellations = streamCancellations;
     }
 
     /**
      * Endpoint to handle chat requests. Accepts a query as input, processes it through the
      * ChatService, and returns a structured response containing the answer and any retrieved
-     * document metadata.
+     * document metadata. Retrieval can be restricted to folders, documents and file names.
+     * The answer is shortened as needed to be returned within the {@value #REQUEST_TIMEOUT_HEADER} header.
      *
      * @param query The chat query string from the user.
+     * @param folderIds Optional IDs of the folders to search.
+     * @param documentIds Optional IDs of the documents to search.
+     * @param fileNames Optional names of the files to search.
+     * @param mode Optional retrieval mode, DENSE or HYBRID.
+     * @param timeoutMillis Optional time to answer in milliseconds.
      * @return ChatResponseDTO containing the AI's answer and metadata of retrieved documents.
      */
     @PostMapping("/chat")
-    public ResponseEntity<ChatResponseDTO> chat(@RequestBody String query) {
+    public ResponseEntity<ChatResponseDTO> chat(
+            @RequestBody String query,
+            @RequestParam(value = "folderId", required = false) List<String> folderIds,
+            @RequestParam(value = "documentId", required = false) List<String> documentIds,
+            @RequestParam(value = "fileName", required = false) List<String> fileNames,
+            @RequestParam(value = "mode", required = false) RetrievalMode mode,
+            @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) Long timeoutMillis) {
         long start = System.currentTimeMillis();
-        ChatResponse response = chatService.chat(query);
+        ChatResponse response = chatService.chat(query, new RetrievalScope(folderIds, documentIds, fileNames), mode,
+                timeout(timeoutMillis));
 
         if (response == null || response.getResult() == null) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -54,21 +95,92 @@ public class ChatController {
         List<Map<String, Object>> documentMetadata = extractDocumentMetadata(response);
 
         log.info("[Response /chat] Response from AI: {}, User query: {}. Interaction time: {}.",
-                answer, query, start - System.currentTimeMillis());
-        return ResponseEntity.ok(new ChatResponseDTO(answer, documentMetadata));
+                answer, query, System.currentTimeMillis() - start);
+        boolean cached = Boolean.TRUE.equals(response.getMetadata().get(ChatService.ANSWER_CACHED));
+        Integer contextTokensSaved = response.getMetadata().get(ChatService.CONTEXT_TOKENS_SAVED);
+        return ResponseEntity.ok()
+                .header(ANSWER_CACHE_HEADER, cacheStatus(cached))
+                .headers(headers -> addContextTokensSaved(headers, contextTokensSaved))
+                .body(new ChatResponseDTO(answer, documentMetadata));
     }
 
     /**
      * Endpoint to handle streaming chat responses. Accepts a query string and
-     * returns a reactive stream of partial responses from the AI.
+     * returns a reactive stream of partial responses from the AI. Retrieval can be restricted
+     * to folders, documents and file names. The stream ends when the client disconnects or cancels it
+     * with the ID returned in the {@value #STREAM_ID_HEADER} header, or once the {@value #REQUEST_TIMEOUT_HEADER}
+     * header has elapsed.
      *
      * @param query The chat query string from the user.
+     * @param folderIds Optional IDs of the folders to search.
+     * @param documentIds Optional IDs of the documents to search.
+     * @param fileNames Optional names of the files to search.
+     * @param mode Optional retrieval mode, DENSE or HYBRID.
+     * @param timeoutMillis Optional time to answer in milliseconds.
      * @return A Flux stream of strings representing incremental AI responses.
      */
     @PostMapping("/chat/stream")
-    public Flux<String> streamChat(@RequestBody String query) {
-        log.info("[Request /streamingChat] User query: {}.", query);
-        return chatService.streamChat(query);
+    public ResponseEntity<Flux<String>> streamChat(
+            @RequestBody String query,
+            @RequestParam(value = "folderId", required = false) List<String> folderIds,
+            @RequestParam(value = "documentId", required = false) List<String> documentIds,
+            @RequestParam(value = "fileName", required = false) List<String> fileNames,
+            @RequestParam(value = "mode", required = false) RetrievalMode mode,
+            @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        RetrievalScope scope = new RetrievalScope(folderIds, documentIds, fileNames);
+        log.info("[Request /streamingChat] User query: {}. Scope: {}. Mode: {}.", query, scope, mode);
+        ChatService.AnswerStream answer = chatService.streamChat(query, scope, mode, timeout(timeoutMillis));
+        StreamCancellations.CancellableStream stream = streamCancellations.register(answer.content());
+        return ResponseEntity.ok()
+                .header(ANSWER_CACHE_HEADER, cacheStatus(answer.cached()))
+                .header(STREAM_ID_HEADER, stream.streamId())
+                .headers(headers -> addContextTokensSaved(headers, answer.contextTokensSaved()))
+                .body(stream.content());
+    }
+
+    /**
+     * Endpoint to cancel a running answer stream.
+     *
+     * @param streamId The ID returned in the {@value #STREAM_ID_HEADER} header of the stream.
+     * @return 204 No Content if the stream was cancelled, 404 Not Found if it is not running.
+     */
+    @DeleteMapping("/chat/stream/{streamId}")
+    public ResponseEntity<Void> cancelStream(@PathVariable("streamId") String streamId) {
+        return streamCancellations.cancel(streamId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Converts the {@value #REQUEST_TIMEOUT_HEADER} header.
+     *
+     * @param timeoutMillis time to answer in milliseconds, null or not positive for the default
+     * @return time to answer, null for the default
+     */
+    private static Duration timeout(Long timeoutMillis) {
+        return timeoutMillis != null && timeoutMillis > 0 ? Duration.ofMillis(timeoutMillis) : null;
+    }
+
+    /**
+     * Adds the {@value #CONTEXT_TOKENS_SAVED_HEADER} header when the answer was generated.
+     *
+     * @param headers response headers
+     * @param contextTokensSaved prompt tokens saved by packing the context, null for a cached answer
+     */
+    private static void addContextTokensSaved(HttpHeaders headers, Integer contextTokensSaved) {
+        if (contextTokensSaved != null) {
+            headers.set(CONTEXT_TOKENS_SAVED_HEADER, contextTokensSaved.toString());
+        }
+    }
+
+    /**
+     * Formats the value of the {@value #ANSWER_CACHE_HEADER} header.
+     *
+     * @param cached whether the answer was served from the answer cache
+     * @return HIT or MISS
+     */
+    private static String cacheStatus(boolean cached) {
+        return cached ? "HIT" : "MISS";
     }
 
     /**
@@ -77,7 +189,7 @@ public class ChatController {
      * @param response The ChatResponse object containing result and metadata.
      * @return A list of metadata maps for each context document.
      */
-    private List<Map<String, Object>> extractDocumentMetadata(ChatResponse response) {
+    static List<Map<String, Object>> extractDocumentMetadata(ChatResponse response) {
         List<Document> contextDocuments = response.getMetadata().get(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS);
         return contextDocuments.stream()
                 .map(Document ::getMetadata)
@@ -1,90 +1,565 @@
 package org.alfresco.ai_framework.chat;
 
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.admission.Bulkhead;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.QuestionAnswerAdvisor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Service responsible for handling chat interactions with the AI system.
- * Configures chat advisors, such as QuestionAnswerAdvisor and SafeGuardAdvisor,
- * to enrich responses and ensure safe interactions.
+ * Retrieves context documents with the {@link ContextRetriever} and augments the user query
+ * with them the same way the QuestionAnswerAdvisor does. Answers are reused from the {@link AnswerCache}
+ * when a similar query retrieves the same chunks. Requests are admitted through the chat {@link Bulkhead}.
+ * Identical requests arriving while one is in progress share its answer, so one generation serves all of them.
+ * Every request runs against a {@link Deadline}: retrieval gets a slice of it and the generation is capped
+ * to the number of tokens the model can produce in the remaining time, so a slow step shortens the answer
+ * instead of failing the request.
+ * The duration of prompt assembly, time to first token and generation are published under {@code ai.chat.phase},
+ * and the prompt and completion tokens of every generation under {@code ai.chat.tokens}, tagged with the model.
  */
 @Slf4j
 @Service
 public class ChatService {
 
+    /**
+     * Key of the response metadata flag telling whether the answer was served from the {@link AnswerCache}.
+     */
+    public static final String ANSWER_CACHED = "answer_cached";
+
+    /**
+     * Key of the response metadata entry with the number of prompt tokens saved by the {@link ContextPacker}.
+     */
+    public static final String CONTEXT_TOKENS_SAVED = "context_tokens_saved";
+
     @Value("${chat.service.debug.stream.enabled:false}")
     private boolean debugStreamEnabled;
 
-    private static final int DEFAULT_TOP_K = 5;
+    /**
+     * Finish reason reported by Ollama when the generation stopped at {@code num_predict} tokens.
+     */
+    private static final String LENGTH_FINISH_REASON = "length";
+    /**
+     * How long a generation outlives its last subscriber, so a request that joined it just before
+     * the others cancelled still receives the answer.
+     */
+    private static final Duration CANCELLATION_GRACE = Duration.ofSeconds(1);
+
+    /**
+     * User prompt of QuestionAnswerAdvisor, with the query passed as a parameter instead of being part of the template.
+     */
+    private static final String USER_PROMPT = "{query}" + System.lineSeparator() + """
+
+            Context information is below, surrounded by ---------------------
+
+            ---------------------
+            {question_answer_context}
+            ---------------------
 
+            Given the context and provided history information and not prior knowledge,
+            reply to the user comment. If the answer is not in the context, inform
+            the user that you can't answer the question.
+            """;
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
     private final ChatClient chatClient;
-    private final VectorStore vectorStore;
+    private final ContextRetriever contextRetriever;
+    private final ContextPacker contextPacker;
+    private final AnswerCache answerCache;
+    private final Bulkhead chatBulkhead;
+    private final InFlightRequests<RequestKey, ChatResponse> inFlightChats;
+    private final InFlightRequests<RequestKey, AnswerStream> inFlightStreams;
+    private final Counter cancelledGenerations;
+    private final Counter abandonedStreams;
+    private final DistributionSummary generatedTokens;
+    private final DistributionSummary savedTokens;
+    private final Counter generationDegraded;
+    private final Timer promptPhase;
+    private final Timer firstTokenPhase;
+    private final Timer generationPhase;
+    private final MeterRegistry meterRegistry;
+    private final Duration defaultTimeout;
+    private final double retrievalFraction;
+    private final double tokensPerSecond;
+    private final int minTokens;
+    private final Duration subscribeTimeout;
 
     /**
-     * Constructs the ChatService with a pre-configured ChatClient and VectorStore.
+     * Constructs the ChatService with a pre-configured ChatClient, ContextRetriever, ContextPacker and AnswerCache.
      *
      * @param chatClientBuilder Builder for creating a ChatClient instance.
-     * @param vectorStore       Vector store for performing document searches.
+     * @param contextRetriever  Retriever of the context documents.
+     * @param contextPacker     Packer fitting the context documents into the prompt token budget.
+     * @param answerCache       Cache of generated answers.
+     * @param chatBulkhead      Bulkhead limiting the number of concurrent chat requests.
+     * @param defaultTimeout    Time to answer a request that does not set its own timeout.
+     * @param retrievalFraction Share of the remaining time given to retrieval.
+     * @param tokensPerSecond   Generation speed used to turn the remaining time into a token limit.
+     * @param minTokens         Token limit of a generation started at or after the deadline.
+     * @param subscribeTimeout  How long a started answer stream waits for its first subscriber before it is abandoned.
+     * @param meterRegistry     Registry exposing request, phase and token metrics.
      */
-    public ChatService(ChatClient.Builder chatClientBuilder, VectorStore vectorStore) {
+    public ChatService(ChatClient.Builder chatClientBuilder, ContextRetriever contextRetriever,
+                       ContextPacker contextPacker, AnswerCache answerCache,
+                       @Qualifier("chatBulkhead") Bulkhead chatBulkhead,
+                       @Value("${ai.chat.deadline.default-timeout:PT45S}") Duration defaultTimeout,
+                       @Value("${ai.chat.deadline.retrieval-fraction:0.25}") double retrievalFraction,
+                       @Value("${ai.chat.deadline.tokens-per-second:20}") double tokensPerSecond,
+                       @Value("${ai.chat.deadline.min-tokens:64}") int minTokens,
+                       @Value("${ai.chat.stream.subscribe-timeout:PT10S}") Duration subscribeTimeout,
+                       MeterRegistry meterRegistry) {
         this.chatClient = chatClientBuilder.build();
-        this.vectorStore = vectorStore;
-        log.debug("ChatService initialized with ChatClient and VectorStore.");
+        this.contextRetriever = contextRetriever;
+        this.contextPacker = contextPacker;
+        this.answerCache = answerCache;
+        this.chatBulkhead = chatBulkhead;
+        this.inFlightChats = new InFlightRequests<>("chat", meterRegistry);
+        this.inFlightStreams = new InFlightRequests<>("stream", meterRegistry);
+        this.cancelledGenerations = Counter.builder("ai.chat.generation.cancelled").register(meterRegistry);
+        this.abandonedStreams = Counter.builder("ai.chat.stream.abandoned").register(meterRegistry);
+        this.generatedTokens = DistributionSummary.builder("ai.chat.generation.tokens")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.savedTokens = DistributionSummary.builder("ai.chat.generation.tokens.saved")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.generationDegraded = Counter.builder("ai.chat.deadline.degraded")
+                .tag("stage", "generation")
+                .register(meterRegistry);
+        this.promptPhase = phaseTimer("prompt", meterRegistry);
+        this.firstTokenPhase = phaseTimer("first-token", meterRegistry);
+        this.generationPhase = phaseTimer("generation", meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.defaultTimeout = defaultTimeout;
+        this.retrievalFraction = retrievalFraction;
+        this.tokensPerSecond = tokensPerSecond;
+        this.minTokens = minTokens;
+        this.subscribeTimeout = subscribeTimeout;
+        log.debug("ChatService initialized with ChatClient, ContextRetriever, ContextPacker and AnswerCache.");
+    }
+
+    /**
+     * Processes a chat query by retrieving context documents and asking the AI to answer from them.
+     * A query identical to one in progress, after normalisation, with the same scope and mode,
+     * waits for its response, and the deadline of the request in progress, instead of being answered again.
+     *
+     * @param query The user input to process.
+     * @param scope Folders, documents and file names to retrieve the context from.
+     * @param mode Retrieval mode, null for the configured default.
+     * @param timeout Time to answer, null for the configured default.
+     * @return The AI-generated ChatResponse, containing the answer, the retrieved documents,
+     *         the {@link #ANSWER_CACHED} flag and the {@link #CONTEXT_TOKENS_SAVED} count in its metadata.
+     * @throws org.alfresco.ai_framework.admission.AdmissionRejectedException if the chat bulkhead is saturated
+     */
+    public ChatResponse chat(String query, RetrievalScope scope, RetrievalMode mode, Duration timeout) {
+        Deadline deadline = Deadline.in(timeout != null ? timeout : defaultTimeout);
+        return inFlightChats.execute(RequestKey.of(query, scope, mode), () -> {
+            try (Bulkhead.Permit permit = chatBulkhead.acquire(deadline.remaining())) {
+                return answer(query, scope, mode, deadline);
+            }
+        });
     }
 
     /**
-     * Processes a chat query by interacting with the AI through configured advisors.
-     * Uses a QuestionAnswerAdvisor for document retrieval.
+     * Answers a chat query from the cache or by generation.
      *
      * @param query The user input to process.
-     * @return The AI-generated ChatResponse, containing the answer and metadata.
+     * @param scope Folders, documents and file names to retrieve the context from.
+     * @param mode Retrieval mode, null for the configured default.
+     * @param deadline Time by which the answer is due.
+     * @return The AI-generated ChatResponse with its metadata.
      */
-    public ChatResponse chat(String query) {
-        log.info("Processing chat query: {}", query);
+    private ChatResponse answer(String query, RetrievalScope scope, RetrievalMode mode, Deadline deadline) {
+        log.info("Processing chat query: {}, {}", query, deadline);
+        long cacheVersion = answerCache.version();
+        RetrievedContext context = contextRetriever.retrieve(query, scope, mode, deadline.slice(retrievalFraction));
+
+        String cachedAnswer = answerCache.get(context);
+        if (cachedAnswer != null) {
+            log.info("Answer served from cache");
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(cachedAnswer))),
+                    ChatResponseMetadata.builder()
+                            .keyValue(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS, context.documents())
+                            .keyValue(ANSWER_CACHED, true)
+                            .build());
+        }
 
-        // Configuring advisors to enhance the response quality
-        ChatResponse response = chatClient.prompt()
-                .user(query)
-                .advisors(new QuestionAnswerAdvisor(vectorStore, SearchRequest.builder().topK(DEFAULT_TOP_K).build()))
-                .call()
-                .chatResponse();
+        PackedContext packedContext = promptPhase.record(() -> contextPacker.pack(context.documents()));
+        int maxTokens = maxTokens(generationTime(deadline));
+        ChatResponse response = generationPhase.record(
+                () -> prompt(query, packedContext, maxTokens).call().chatResponse());
 
         log.info("Received response from AI");
-        return response;
+        if (response == null) {
+            return null;
+        }
+        recordUsage(response);
+        if (response.getResult() != null) {
+            if (LENGTH_FINISH_REASON.equals(response.getResult().getMetadata().getFinishReason())) {
+                // A truncated answer is returned but not reused
+                generationDegraded.increment();
+                log.warn("Answer truncated at {} token(s) to meet the deadline", maxTokens);
+            } else {
+                answerCache.put(context, response.getResult().getOutput().getText(), cacheVersion);
+            }
+        }
+        return ChatResponse.builder()
+                .from(response)
+                .metadata(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS, context.documents())
+                .metadata(ANSWER_CACHED, false)
+                .metadata(CONTEXT_TOKENS_SAVED, packedContext.savedTokens())
+                .build();
     }
 
     /**
      * Processes a chat query and returns a reactive stream of AI-generated responses.
-     * Uses a QuestionAnswerAdvisor for document retrieval to provide contextual answers.
+     * Retrieval and the cache lookup run before the stream is returned, so the caller knows
+     * whether the answer comes from the cache; a cached answer is emitted as a single fragment.
+     * The chat bulkhead permit is held until the stream terminates, or until the subscribe timeout if nobody
+     * subscribes to the stream, after which a subscriber fails instead of generating without the permit.
+     * A query identical to one being streamed, after normalisation, with the same scope and mode,
+     * subscribes to the same stream and receives the fragments already emitted first.
+     * When every subscriber has cancelled, for example because the clients disconnected, the request
+     * to Ollama is cancelled, which aborts the generation, and the bulkhead permit is released; a request
+     * subscribing to the stream after that fails instead of generating the answer a second time.
+     * The stream ends at the deadline of the request that started it, even if the answer is not complete.
      *
      * @param query The user input to process.
-     * @return A Flux stream of ChatResponse objects containing answers and metadata.
-     */
-    public Flux<String> streamChat(String query) {
-        log.info("Processing chat query: {}", query);
-        var prompt = chatClient.prompt()
-                .user(query)
-                .advisors(new QuestionAnswerAdvisor(
-                        vectorStore,
-                        SearchRequest.builder().topK(DEFAULT_TOP_K).build()
-                )).stream();
-        if( Boolean.TRUE.equals(debugStreamEnabled) ) {
-            return prompt.chatResponse()
-                    .doOnNext(chatResponse -> {
-                        log.info("Model: {}", chatResponse.getMetadata().getModel());
-                        log.info("Response chunk: {}", chatResponse.getResult().getOutput().getText());
+     * @param scope Folders, documents and file names to retrieve the context from.
+     * @param mode Retrieval mode, null for the configured default.
+     * @param timeout Time to answer, null for the configured default.
+     * @return A Flux stream of answer fragments, whether the answer was served from the cache
+     *         and the prompt tokens saved by packing the context.
+     * @throws org.alfresco.ai_framework.admission.AdmissionRejectedException if the chat bulkhead is saturated
+     */
+    public AnswerStream streamChat(String query, RetrievalScope scope, RetrievalMode mode, Duration timeout) {
+        Deadline deadline = Deadline.in(timeout != null ? timeout : defaultTimeout);
+        return inFlightStreams.executeUntilReleased(
+                RequestKey.of(query, scope, mode),
+                release -> startStream(query, scope, mode, deadline, release));
+    }
+
+    /**
+     * Starts streaming the answer of a chat query, shared by all identical requests until it terminates.
+     *
+     * @param query The user input to process.
+     * @param scope Folders, documents and file names to retrieve the context from.
+     * @param mode Retrieval mode, null for the configured default.
+     * @param deadline Time by which the answer is due.
+     * @param release Callback ending the sharing of the stream.
+     * @return A replaying Flux stream of answer fragments with its metadata.
+     */
+    private AnswerStream startStream(String query, RetrievalScope scope, RetrievalMode mode, Deadline deadline,
+                                     Runnable release) {
+        Bulkhead.Permit permit = chatBulkhead.acquire(deadline.remaining());
+        try {
+            log.info("Processing chat query: {}, {}", query, deadline);
+            long cacheVersion = answerCache.version();
+            RetrievedContext context = contextRetriever.retrieve(query, scope, mode, deadline.slice(retrievalFraction));
+
+            String cachedAnswer = answerCache.get(context);
+            if (cachedAnswer != null) {
+                log.info("Answer served from cache");
+                permit.close();
+                release.run();
+                return new AnswerStream(Flux.just(cachedAnswer), true, null);
+            }
+
+            PackedContext packedContext = promptPhase.record(() -> contextPacker.pack(context.documents()));
+            AtomicBoolean generated = new AtomicBoolean();
+            Flux<String> content = Flux.defer(() -> {
+                        if (!generated.compareAndSet(false, true)) {
+                            // The permit of the cancelled or abandoned generation is released,
+                            // do not generate again without it
+                            return Flux.<String>error(new IllegalStateException(
+                                    "Answer generation cancelled by all its subscribers or never subscribed"));
+                        }
+                        long start = System.nanoTime();
+                        StringBuilder answer = new StringBuilder();
+                        boolean[] deadlineReached = new boolean[1];
+                        ChatResponse[] finalChunk = new ChatResponse[1];
+                        Duration generationTime = generationTime(deadline);
+                        int maxTokens = maxTokens(generationTime);
+                        return generate(query, packedContext, maxTokens)
+                                .takeUntilOther(Mono.delay(generationTime)
+                                        .doOnNext(tick -> deadlineReached[0] = true))
+                                .doOnNext(chunk -> {
+                                    if (finishReason(chunk) != null) {
+                                        finalChunk[0] = chunk;
+                                    }
+                                })
+                                .map(ChatService::text)
+                                .filter(StringUtils::hasLength)
+                                .doOnNext(fragment -> {
+                                    if (answer.isEmpty()) {
+                                        firstTokenPhase.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                                    }
+                                    answer.append(fragment);
+                                })
+                                .doOnComplete(() -> {
+                                    generationPhase.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                                    if (finalChunk[0] != null) {
+                                        recordUsage(finalChunk[0]);
+                                    }
+                                    int tokens = completionTokens(finalChunk[0], answer);
+                                    if (deadlineReached[0] || tokens >= maxTokens
+                                            || LENGTH_FINISH_REASON.equals(finishReason(finalChunk[0]))) {
+                                        // A truncated answer is sent but not reused
+                                        generationDegraded.increment();
+                                        log.warn("Answer truncated after {} token(s) to meet the deadline", tokens);
+                                        return;
+                                    }
+                                    generatedTokens.record(tokens);
+                                    answerCache.put(context, answer.toString(), cacheVersion);
+                                })
+                                .doOnCancel(() -> recordCancellation(encoding.countTokens(answer.toString())));
+                    })
+                    .doFinally(signal -> {
+                        // Stop sharing the stream before the permit can be taken by another request
+                        release.run();
+                        permit.close();
                     })
-                    .map(chatResponse -> chatResponse.getResult().getOutput().getText());
-        } else {
-            return prompt.content();
+                    .replay()
+                    .refCount(1, CANCELLATION_GRACE);
+            // doFinally only runs once subscribed, so a stream the caller never subscribes to, for example
+            // because the response failed before its body was written, releases its permit and key here
+            Mono.delay(subscribeTimeout).subscribe(tick -> {
+                if (generated.compareAndSet(false, true)) {
+                    abandonedStreams.increment();
+                    log.warn("Answer stream not subscribed within {}, releasing its permit", subscribeTimeout);
+                    release.run();
+                    permit.close();
+                }
+            });
+            return new AnswerStream(content, false, packedContext.savedTokens());
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
         }
     }
 
+    /**
+     * Records a generation cancelled because no client was subscribed any more. Ollama does not report
+     * the usage of an aborted generation, so the saved tokens are estimated as the mean length of completed
+     * answers minus the tokens of the text already generated.
+     *
+     * @param generated tokens generated before the cancellation
+     */
+    private void recordCancellation(int generated) {
+        cancelledGenerations.increment();
+        double saved = Math.max(0, generatedTokens.mean() - generated);
+        savedTokens.record(saved);
+        log.info("Generation cancelled after {} token(s), about {} token(s) saved", generated, Math.round(saved));
+    }
+
+    /**
+     * Returns the number of tokens of a completed answer: the completion tokens reported with the final chunk,
+     * or the tokens of the answer text counted with the context packing encoding if the model reported none.
+     *
+     * @param finalChunk final chunk of the streamed response, null if none was received
+     * @param answer text of the answer
+     * @return completion tokens
+     */
+    private int completionTokens(ChatResponse finalChunk, CharSequence answer) {
+        Usage usage = finalChunk != null ? finalChunk.getMetadata().getUsage() : null;
+        if (usage != null && usage.getCompletionTokens() != null && usage.getCompletionTokens() > 0) {
+            return usage.getCompletionTokens();
+        }
+        return encoding.countTokens(answer.toString());
+    }
+
+    /**
+     * Returns the time left to generate the answer: the time remaining before the deadline, but at least
+     * the time needed to generate the minimum number of tokens.
+     *
+     * @param deadline Time by which the answer is due.
+     * @return generation time
+     */
+    private Duration generationTime(Deadline deadline) {
+        Duration minimum = Duration.ofMillis((long) (minTokens * 1000 / tokensPerSecond));
+        Duration remaining = deadline.remaining();
+        return remaining.compareTo(minimum) > 0 ? remaining : minimum;
+    }
+
+    /**
+     * Converts a generation time into a token limit at the configured generation speed.
+     *
+     * @param generationTime time left to generate the answer
+     * @return {@code num_predict} of the request
+     */
+    private int maxTokens(Duration generationTime) {
+        return (int) Math.max(minTokens, generationTime.toMillis() * tokensPerSecond / 1000);
+    }
+
+    /**
+     * Records the prompt and completion tokens reported with a response, tagged with the model.
+     *
+     * @param response complete response, or the final chunk of a streamed response
+     */
+    private void recordUsage(ChatResponse response) {
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null) {
+            return;
+        }
+        String model = StringUtils.hasText(response.getMetadata().getModel())
+                ? response.getMetadata().getModel()
+                : "unknown";
+        if (usage.getPromptTokens() != null) {
+            tokenCounter("prompt", model).increment(usage.getPromptTokens());
+        }
+        if (usage.getCompletionTokens() != null) {
+            tokenCounter("completion", model).increment(usage.getCompletionTokens());
+        }
+    }
+
+    /**
+     * Returns the counter of prompt or completion tokens of a model.
+     *
+     * @param type prompt or completion
+     * @param model model name
+     * @return token counter
+     */
+    private Counter tokenCounter(String type, String model) {
+        return Counter.builder("ai.chat.tokens")
+                .tag("type", type)
+                .tag("model", model)
+                .baseUnit("tokens")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the timer of a chat phase.
+     *
+     * @param phase phase name
+     * @param meterRegistry registry the timer is registered in
+     * @return timer publishing a percentile histogram
+     */
+    private static Timer phaseTimer(String phase, MeterRegistry meterRegistry) {
+        return Timer.builder("ai.chat.phase")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the finish reason of a response, set by Ollama on the final chunk of a stream.
+     *
+     * @param response response or chunk, possibly null
+     * @return finish reason, null if the generation has not finished
+     */
+    private static String finishReason(ChatResponse response) {
+        return response != null && response.getResult() != null
+                ? response.getResult().getMetadata().getFinishReason()
+                : null;
+    }
+
+    /**
+     * Returns the text of a response chunk.
+     *
+     * @param response response chunk
+     * @return generated text, empty if the chunk has none
+     */
+    private static String text(ChatResponse response) {
+        if (response.getResult() == null || response.getResult().getOutput() == null
+                || response.getResult().getOutput().getText() == null) {
+            return "";
+        }
+        return response.getResult().getOutput().getText();
+    }
+
+    /**
+     * Streams the responses generated from the packed context.
+     *
+     * @param query The user input.
+     * @param context The packed context.
+     * @param maxTokens Maximum number of generated tokens.
+     * @return A Flux stream of response chunks.
+     */
+    private Flux<ChatResponse> generate(String query, PackedContext context, int maxTokens) {
+        Flux<ChatResponse> responses = prompt(query, context, maxTokens).stream().chatResponse();
+        if (Boolean.TRUE.equals(debugStreamEnabled)) {
+            return responses.doOnNext(chatResponse -> {
+                log.info("Model: {}", chatResponse.getMetadata().getModel());
+                log.info("Response chunk: {}", text(chatResponse));
+            });
+        }
+        return responses;
+    }
+
+    /**
+     * Builds the prompt augmenting the query with the packed documents.
+     *
+     * @param query The user input.
+     * @param context The packed context.
+     * @param maxTokens Maximum number of generated tokens.
+     * @return prompt ready to be called or streamed
+     */
+    private ChatClient.ChatClientRequestSpec prompt(String query, PackedContext context, int maxTokens) {
+        String documentContext = context.documents().stream()
+                .map(Document::getText)
+                .collect(Collectors.joining(System.lineSeparator()));
+        return chatClient.prompt()
+                .options(OllamaOptions.builder().numPredict(maxTokens).build())
+                .user(u -> u.text(USER_PROMPT)
+                        .param("query", query)
+                        .param("question_answer_context", documentContext));
+    }
+
+    /**
+     * Streamed answer of a chat query.
+     *
+     * @param content answer fragments
+     * @param cached whether the answer was served from the {@link AnswerCache}
+     * @param contextTokensSaved prompt tokens saved by the {@link ContextPacker}, null for a cached answer
+     */
+    public record AnswerStream(Flux<String> content, boolean cached, Integer contextTokensSaved) {
+    }
+
+    /**
+     * Identity of a chat request, used to coalesce identical requests.
+     *
+     * @param query normalised query
+     * @param scope retrieval scope
+     * @param mode retrieval mode
+     */
+    private record RequestKey(String query, RetrievalScope scope, RetrievalMode mode) {
+
+        /**
+         * Creates the key of a request. Queries differing only in case, Unicode form or whitespace
+         * are identical requests, as they are for the {@link QueryEmbeddingCache}.
+         *
+         * @param query user query
+         * @param scope retrieval scope
+         * @param mode retrieval mode
+         * @return request key with the normalised query
+         */
+        static RequestKey of(String query, RetrievalScope scope, RetrievalMode mode) {
+            return new RequestKey(QueryEmbeddingCache.normalize(query), scope, mode);
+        }
+    }
 }
@@ -0,0 +1,304 @@
+package org.alfresco.ai_framework.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.alfresco.ai_framework.ingestion.VectorIndexOperations.CHUNK_INDEX;
+
+/**
+ * Packs retrieved chunks into the prompt token budget before generation: near-duplicate chunks are dropped,
+ * adjacent chunks of the same document are merged into one passage when the whole passage fits, and the context
+ * is cut to the budget, most relevant chunks first. Tokens are counted with the same encoding as the ingestion
+ * token splitter, and counts of recently seen chunks are cached.
+ */
+@Slf4j
+@Component
+public class ContextPacker {
+
+    private static final String DOCUMENT_ID = "documentId";
+    private static final String ORIGINAL_DOCUMENT_ID = "original_document_id";
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("\\W+", Pattern.UNICODE_CHARACTER_CLASS);
+    private static final int SHINGLE_SIZE = 3;
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final Cache<String, Integer> tokenCounts;
+    private final int maxTokens;
+    private final double duplicateSimilarity;
+    private final int minTruncatedTokens;
+    private final DistributionSummary savedTokens;
+
+    /**
+     * Creates the packer and registers its metrics in the given meter registry.
+     *
+     * @param maxTokens token budget of the context
+     * @param duplicateSimilarity word shingle Jaccard similarity from which a chunk is dropped as a near-duplicate
+     *                            of a more relevant one
+     * @param minTruncatedTokens smallest useful part of a chunk cut at the end of the budget
+     * @param tokenCountCacheSize number of chunks whose token count is cached
+     * @param meterRegistry registry exposing the saved prompt tokens
+     */
+    public ContextPacker(@Value("${ai.chat.context.max-tokens:3000}") int maxTokens,
+                         @Value("${ai.chat.context.duplicate-similarity:0.9}") double duplicateSimilarity,
+                         @Value("${ai.chat.context.min-truncated-tokens:64}") int minTruncatedTokens,
+                         @Value("${ai.chat.context.token-count-cache-size:10000}") long tokenCountCacheSize,
+                         MeterRegistry meterRegistry) {
+        this.maxTokens = maxTokens;
+        this.duplicateSimilarity = duplicateSimilarity;
+        this.minTruncatedTokens = minTruncatedTokens;
+        this.tokenCounts = Caffeine.newBuilder().maximumSize(tokenCountCacheSize).build();
+        this.savedTokens = DistributionSummary.builder("ai.chat.context.tokens.saved")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        log.info("Context packer initialized, max tokens: {}, duplicate similarity: {}",
+                maxTokens, duplicateSimilarity);
+    }
+
+    /**
+     * Packs the retrieved chunks into the token budget.
+     *
+     * @param documents retrieved chunks, most relevant first
+     * @return packed documents with the token counts before and after packing
+     */
+    public PackedContext pack(List<Document> documents) {
+        int retrievedTokens = 0;
+        for (Document document : documents) {
+            retrievedTokens += countTokens(document);
+        }
+
+        List<Document> distinct = dropDuplicates(documents);
+        Map<Document, Run> runs = adjacentRuns(distinct);
+        Set<Document> placed = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Document> packed = new ArrayList<>();
+        int packedTokens = 0;
+        for (Document document : distinct) {
+            if (placed.contains(document)) continue;
+            int remaining = maxTokens - packedTokens;
+            Run run = runs.get(document);
+            // A run is merged at the rank of its most relevant chunk only if all of it fits, so less relevant
+            // chunks never take the budget of more relevant ones; otherwise every chunk keeps its own rank
+            boolean mergeable = run.best() == document && run.chunks().size() > 1;
+            if (mergeable) {
+                Document passage = merge(run);
+                int tokens = countTokens(passage);
+                if (tokens <= remaining) {
+                    packed.add(passage);
+                    packedTokens += tokens;
+                    placed.addAll(run.chunks());
+                    continue;
+                }
+            }
+            int tokens = countTokens(document);
+            if (tokens <= remaining) {
+                packed.add(document);
+                packedTokens += tokens;
+                placed.add(document);
+            } else if (remaining >= minTruncatedTokens) {
+                // Only the chunk itself is cut, never a merged run, so the text kept is the most relevant one
+                // instead of the start of a less relevant neighbour
+                EncodingResult truncated = encoding.encode(document.getText(), remaining);
+                packed.add(document.mutate().text(encoding.decode(truncated.getTokens())).build());
+                packedTokens += truncated.getTokens().size();
+                break;
+            } else {
+                break;
+            }
+        }
+
+        PackedContext context = new PackedContext(packed, retrievedTokens, packedTokens);
+        savedTokens.record(context.savedTokens());
+        log.debug("Packed {} chunk(s) into {} passage(s), tokens: {} -> {}",
+                documents.size(), packed.size(), retrievedTokens, packedTokens);
+        return context;
+    }
+
+    /**
+     * Drops chunks whose text is nearly the same as the text of a more relevant chunk.
+     *
+     * @param documents chunks, most relevant first
+     * @return distinct chunks, most relevant first
+     */
+    private List<Document> dropDuplicates(List<Document> documents) {
+        List<Document> kept = new ArrayList<>(documents.size());
+        List<Set<Long>> keptShingles = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Set<Long> shingles = shingles(document.getText());
+            boolean duplicate = false;
+            for (Set<Long> other : keptShingles) {
+                if (jaccard(shingles, other) >= duplicateSimilarity) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                kept.add(document);
+                keptShingles.add(shingles);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Groups chunks of the same document with consecutive chunk indexes into runs.
+     *
+     * @param documents distinct chunks, most relevant first
+     * @return run of every chunk, a chunk without neighbours forming a run of its own
+     */
+    private static Map<Document, Run> adjacentRuns(List<Document> documents) {
+        List<Run> runs = new ArrayList<>();
+        Map<Document, Run> runOf = new IdentityHashMap<>();
+        for (Document document : documents) {
+            Run run = runs.stream()
+                    .filter(candidate -> adjacentTo(candidate.chunks(), document))
+                    .findFirst()
+                    .orElse(null);
+            if (run == null) {
+                run = new Run(document, new ArrayList<>(List.of(document)));
+                runs.add(run);
+            } else {
+                run.chunks().add(document);
+                run.chunks().sort(Comparator.comparingInt(ContextPacker::chunkIndex));
+            }
+            runOf.put(document, run);
+        }
+        return runOf;
+    }
+
+    /**
+     * Merges a run into one passage in reading order, carrying the metadata of its most relevant chunk.
+     *
+     * @param run chunks of the same document with consecutive chunk indexes
+     * @return merged passage
+     */
+    private static Document merge(Run run) {
+        List<Document> chunks = run.chunks();
+        StringBuilder text = new StringBuilder(chunks.get(0).getText());
+        for (int i = 1; i < chunks.size(); i++) {
+            text.append(separator(chunks.get(i - 1), chunks.get(i))).append(chunks.get(i).getText());
+        }
+        return run.best().mutate().text(text.toString()).build();
+    }
+
+    /**
+     * Returns the text joining two consecutive chunks. Parts split from the same original chunk are joined with
+     * a space, as they are contiguous but were trimmed when split; other chunks are joined with a line separator.
+     *
+     * @param previous chunk
+     * @param next following chunk
+     * @return separator
+     */
+    private static String separator(Document previous, Document next) {
+        Object previousOriginal = previous.getMetadata().get(ORIGINAL_DOCUMENT_ID);
+        boolean sameOriginal = previousOriginal != null
+                && previousOriginal.equals(next.getMetadata().get(ORIGINAL_DOCUMENT_ID));
+        return sameOriginal ? " " : System.lineSeparator();
+    }
+
+    /**
+     * Tells whether a chunk directly precedes or follows a run of chunks of the same document.
+     *
+     * @param run chunks sorted by chunk index
+     * @param document chunk to test
+     * @return true if the chunk extends the run
+     */
+    private static boolean adjacentTo(List<Document> run, Document document) {
+        Document first = run.get(0);
+        Object documentId = document.getMetadata().get(DOCUMENT_ID);
+        if (documentId == null || !documentId.equals(first.getMetadata().get(DOCUMENT_ID))) {
+            return false;
+        }
+        int index = chunkIndex(document);
+        return index >= 0 && (index == chunkIndex(first) - 1 || index == chunkIndex(run.get(run.size() - 1)) + 1);
+    }
+
+    /**
+     * Returns the ordinal of a chunk within its document.
+     *
+     * @param document chunk
+     * @return chunk index, or -1 if the chunk was indexed without one
+     */
+    private static int chunkIndex(Document document) {
+        Object index = document.getMetadata().get(CHUNK_INDEX);
+        return index instanceof Number number ? number.intValue() : -1;
+    }
+
+    /**
+     * Counts the tokens of a chunk, reusing the count of a chunk with the same ID and text.
+     *
+     * @param document chunk
+     * @return token count
+     */
+    private int countTokens(Document document) {
+        String text = Objects.requireNonNullElse(document.getText(), "");
+        return tokenCounts.get(document.getId() + ":" + text.length() + ":" + text.hashCode(),
+                key -> encoding.countTokens(text));
+    }
+
+    /**
+     * Hashes the word shingles of a text.
+     *
+     * @param text text
+     * @return hashes of every sequence of {@value #SHINGLE_SIZE} consecutive lower-case words
+     */
+    private static Set<Long> shingles(String text) {
+        String[] words = WORD_SEPARATOR.split(Objects.requireNonNullElse(text, "").toLowerCase(Locale.ROOT));
+        Set<Long> shingles = new HashSet<>(Math.max(16, words.length * 2));
+        for (int i = 0; i + SHINGLE_SIZE <= words.length; i++) {
+            long hash = 17;
+            for (int j = i; j < i + SHINGLE_SIZE; j++) {
+                hash = hash * 31 + words[j].hashCode();
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+
+    /**
+     * Computes the Jaccard similarity of two shingle sets.
+     *
+     * @param a first set
+     * @param b second set
+     * @return size of the intersection divided by the size of the union, 0 if both are empty
+     */
+    private static double jaccard(Set<Long> a, Set<Long> b) {
+        if (a.isEmpty() && b.isEmpty()) return 0;
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        int intersection = 0;
+        for (Long shingle : smaller) {
+            if (larger.contains(shingle)) intersection++;
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    /**
+     * Chunks of the same document with consecutive chunk indexes.
+     *
+     * @param best most relevant chunk of the run
+     * @param chunks chunks sorted by chunk index
+     */
+    private record Run(Document best, List<Document> chunks) {
+    }
+
+}
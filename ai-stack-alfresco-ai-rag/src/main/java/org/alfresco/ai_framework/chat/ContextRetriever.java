@@ -0,0 +1,500 @@
+package org.alfresco.ai_framework.chat;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.util.ObjectBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.ingestion.VectorIndexOperations;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.model.EmbeddingUtils;
+import org.springframework.ai.vectorstore.elasticsearch.ElasticsearchVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Retrieves the chunks used as context of a chat answer from the vector index.
+ * The query is embedded through the {@link QueryEmbeddingCache}, so a repeated question is not embedded again,
+ * and the search is sent through the client of the auto-configured vector store, returning the same documents
+ * as {@code VectorStore.similaritySearch} without fetching the stored embeddings. A {@link RetrievalScope}
+ * is applied as a filter of the kNN search, so only chunks within the scope are considered as candidates.
+ * In {@link RetrievalMode#HYBRID} mode a BM25 match on the chunk text runs in parallel with the kNN search
+ * and both result lists are fused with reciprocal rank fusion, so exact identifiers missed by the embedding
+ * are still retrieved. BM25 searches wait in a bounded queue; when it is full the kNN hits are used alone.
+ * Retrieval is bounded by a {@link Deadline}: a query not embedded by the deadline is answered with the BM25 hits
+ * alone in hybrid mode and without context otherwise, searches carry the remaining time as their Elasticsearch
+ * timeout, so shards that have not finished in time are left out, and a BM25 leg still running at the deadline
+ * is dropped in favour of the kNN hits alone.
+ */
+@Slf4j
+@Component
+public class ContextRetriever {
+
+    private static final String EMBEDDING_FIELD = "embedding";
+    private static final String CONTENT_FIELD = "content";
+
+    /**
+     * Metadata key of the reciprocal rank fusion score of a chunk retrieved by a hybrid search.
+     */
+    public static final String RRF_SCORE = "rrfScore";
+
+    /**
+     * Shortest search timeout, so a search started at the deadline still has a chance to return hits.
+     */
+    private static final Duration MIN_SEARCH_TIMEOUT = Duration.ofMillis(100);
+
+    private final ElasticsearchClient client;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final String indexName;
+    private final int topK;
+    private final int numCandidates;
+    private final RetrievalMode defaultMode;
+    private final int rankWindowSize;
+    private final int rankConstant;
+    private final ThreadPoolExecutor lexicalSearches;
+    private final ThreadPoolExecutor queryEmbeddings;
+    private final Timer knnTimer;
+    private final Timer bm25Timer;
+    private final Timer embeddingPhase;
+    private final Timer searchPhase;
+    private final Counter embeddingDegraded;
+    private final Counter knnDegraded;
+    private final Counter bm25Degraded;
+    private final Counter bm25Rejected;
+
+    /**
+     * Constructs the retriever on the index managed by the given vector store.
+     *
+     * @param vectorStore the auto-configured Elasticsearch vector store
+     * @param queryEmbeddingCache cache of query embeddings
+     * @param indexName name of the vector index
+     * @param topK number of chunks retrieved per query
+     * @param numCandidates number of kNN candidates per shard, 0 for 1.5 times the number of requested hits
+     * @param defaultMode retrieval mode used when a request does not specify one
+     * @param rankWindowSize number of hits taken from each leg of a hybrid search before fusion
+     * @param rankConstant rank constant of the reciprocal rank fusion
+     * @param lexicalThreads number of BM25 searches run in parallel with the kNN searches
+     * @param lexicalQueueCapacity number of BM25 searches waiting for a thread before hybrid searches
+     *                             fall back to the kNN hits alone
+     * @param embeddingThreads number of queries embedded at the same time, the chat concurrency by default;
+     *                         a query arriving while all of them are busy is not embedded
+     * @param meterRegistry registry exposing the duration of the embedding, the search and each search leg,
+     *                      searches cut by the deadline and rejected BM25 searches
+     */
+    public ContextRetriever(ElasticsearchVectorStore vectorStore,
+                            QueryEmbeddingCache queryEmbeddingCache,
+                            @Value("${spring.ai.vectorstore.elasticsearch.index-name:spring-ai-document-index}")
+                            String indexName,
+                            @Value("${ai.chat.retrieval.top-k:5}") int topK,
+                            @Value("${ai.chat.retrieval.num-candidates:0}") int numCandidates,
+                            @Value("${ai.chat.retrieval.mode:DENSE}") RetrievalMode defaultMode,
+                            @Value("${ai.chat.retrieval.hybrid.rank-window-size:20}") int rankWindowSize,
+                            @Value("${ai.chat.retrieval.hybrid.rank-constant:60}") int rankConstant,
+                            @Value("${ai.chat.retrieval.hybrid.threads:4}") int lexicalThreads,
+                            @Value("${ai.chat.retrieval.hybrid.queue-capacity:16}") int lexicalQueueCapacity,
+                            @Value("${ai.chat.retrieval.embedding-threads:${ai.admission.chat.max-concurrent:2}}")
+                            int embeddingThreads,
+                            MeterRegistry meterRegistry) {
+        this.client = vectorStore.<ElasticsearchClient>getNativeClient()
+                .orElseThrow(() -> new IllegalStateException("Elasticsearch client is not available"));
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.indexName = indexName;
+        this.topK = topK;
+        this.numCandidates = numCandidates;
+        this.defaultMode = defaultMode;
+        this.rankWindowSize = Math.max(rankWindowSize, topK);
+        this.rankConstant = rankConstant;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.lexicalSearches = new ThreadPoolExecutor(lexicalThreads, lexicalThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(lexicalQueueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "retrieval-bm25-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // No queue: an embedding left running past its deadline keeps its thread, so new queries are
+        // rejected instead of piling up while the embedding model hangs
+        AtomicInteger embeddingThreadNumber = new AtomicInteger();
+        this.queryEmbeddings = new ThreadPoolExecutor(embeddingThreads, embeddingThreads, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "retrieval-embedding-" + embeddingThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.knnTimer = Timer.builder("ai.chat.retrieval.search").tag("leg", "knn")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.bm25Timer = Timer.builder("ai.chat.retrieval.search").tag("leg", "bm25")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.embeddingPhase = Timer.builder("ai.chat.phase").tag("phase", "embedding")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.searchPhase = Timer.builder("ai.chat.phase").tag("phase", "search")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.embeddingDegraded = Counter.builder("ai.chat.deadline.degraded").tag("stage", "embedding")
+                .register(meterRegistry);
+        this.knnDegraded = Counter.builder("ai.chat.deadline.degraded").tag("stage", "knn").register(meterRegistry);
+        this.bm25Degraded = Counter.builder("ai.chat.deadline.degraded").tag("stage", "bm25").register(meterRegistry);
+        this.bm25Rejected = Counter.builder("ai.chat.retrieval.bm25.rejected").register(meterRegistry);
+        log.info("Context retriever initialized, mode: {}, top k: {}, num candidates: {}, rank window size: {}",
+                defaultMode, topK, numCandidates > 0 ? numCandidates : "1.5 * k", this.rankWindowSize);
+    }
+
+    /**
+     * Embeds the query and retrieves the most relevant chunks within the scope.
+     *
+     * @param query user query
+     * @param scope folders, documents and file names to search
+     * @param mode retrieval mode, null for the configured default
+     * @param deadline time by which the searches should return, possibly with fewer chunks
+     * @return query embedding and retrieved chunks
+     */
+    public RetrievedContext retrieve(String query, RetrievalScope scope, RetrievalMode mode, Deadline deadline) {
+        List<Query> filter = scopeFilter(scope);
+        RetrievedContext context = (mode != null ? mode : defaultMode) == RetrievalMode.HYBRID
+                ? hybridSearch(query, filter, deadline)
+                : denseSearch(query, filter, deadline);
+        log.debug("Retrieved {} chunk(s) for query: {}, scope: {}, mode: {}",
+                context.documents().size(), query, scope, mode != null ? mode : defaultMode);
+        return context;
+    }
+
+    /**
+     * Retrieves the chunks most similar to the query embedding.
+     *
+     * @param query user query
+     * @param filter pre-filter of the kNN candidates
+     * @param deadline time by which the search should return
+     * @return query embedding and retrieved chunks, most similar first, or no chunks if the query was not
+     * embedded in time
+     */
+    private RetrievedContext denseSearch(String query, List<Query> filter, Deadline deadline) {
+        float[] queryEmbedding = embedQuery(query, deadline);
+        if (queryEmbedding == null) {
+            return new RetrievedContext(null, List.of());
+        }
+        List<Hit<IndexedChunk>> hits = searchPhase.record(
+                () -> knnTimer.record(() -> knnSearch(queryEmbedding, filter, topK, deadline)));
+        List<Document> documents = new ArrayList<>(hits.size());
+        for (Hit<IndexedChunk> hit : hits) {
+            documents.add(toDocument(hit));
+        }
+        return new RetrievedContext(queryEmbedding, documents);
+    }
+
+    /**
+     * Runs the BM25 search on a worker thread while the query is embedded and the kNN search runs,
+     * then fuses both rankings. When the BM25 queue is full, or the BM25 search has not returned by the deadline,
+     * the kNN hits are used alone; when the query was not embedded in time, the BM25 hits are used alone.
+     *
+     * @param query user query
+     * @param filter filter applied to both searches
+     * @param deadline time by which the searches should return
+     * @return query embedding and fused chunks, best first
+     */
+    private RetrievedContext hybridSearch(String query, List<Query> filter, Deadline deadline) {
+        CompletableFuture<List<Hit<IndexedChunk>>> lexical = submitLexical(query, filter, deadline);
+        float[] queryEmbedding;
+        List<Hit<IndexedChunk>> dense;
+        long searchStart;
+        try {
+            queryEmbedding = embedQuery(query, deadline);
+            searchStart = System.nanoTime();
+            dense = queryEmbedding != null
+                    ? knnTimer.record(() -> knnSearch(queryEmbedding, filter, rankWindowSize, deadline))
+                    : List.of();
+        } catch (RuntimeException e) {
+            lexical.cancel(false);
+            throw e;
+        }
+        List<Document> fused = fuse(dense, awaitLexical(lexical, deadline));
+        searchPhase.record(System.nanoTime() - searchStart, TimeUnit.NANOSECONDS);
+        return new RetrievedContext(queryEmbedding, fused);
+    }
+
+    /**
+     * Embeds the query on a worker thread, waiting for it until the deadline.
+     *
+     * @param query user query
+     * @param deadline time by which the embedding should return
+     * @return query embedding, null if it has not returned by the deadline or every embedding thread is busy
+     */
+    private float[] embedQuery(String query, Deadline deadline) {
+        long start = System.nanoTime();
+        CompletableFuture<float[]> embedding;
+        try {
+            embedding = CompletableFuture.supplyAsync(() -> queryEmbeddingCache.embed(query), queryEmbeddings);
+        } catch (RejectedExecutionException e) {
+            embeddingDegraded.increment();
+            log.warn("All query embedding threads are busy, retrieving without the query embedding");
+            return null;
+        }
+        try {
+            return embedding.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            embedding.cancel(false);
+            embeddingDegraded.increment();
+            log.warn("Query embedding did not return before the deadline, retrieving without it");
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Query embedding failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the query embedding", e);
+        } finally {
+            embeddingPhase.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Queues the BM25 search.
+     *
+     * @param query user query
+     * @param filter filter of the matched chunks
+     * @param deadline time by which the search should return
+     * @return running BM25 search, or no hits if the queue is full
+     */
+    private CompletableFuture<List<Hit<IndexedChunk>>> submitLexical(String query, List<Query> filter,
+                                                                     Deadline deadline) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> bm25Timer.record(() -> bm25Search(query, filter, deadline)), lexicalSearches);
+        } catch (RejectedExecutionException e) {
+            bm25Rejected.increment();
+            log.warn("BM25 search queue is full, using kNN hits only");
+            return CompletableFuture.completedFuture(List.of());
+        }
+    }
+
+    /**
+     * Waits for the BM25 hits until the deadline.
+     *
+     * @param lexical running BM25 search
+     * @param deadline time by which the search should return
+     * @return BM25 hits, or no hits if the search has not returned in time
+     */
+    private List<Hit<IndexedChunk>> awaitLexical(CompletableFuture<List<Hit<IndexedChunk>>> lexical,
+                                                 Deadline deadline) {
+        try {
+            return lexical.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            lexical.cancel(false);
+            bm25Degraded.increment();
+            log.warn("BM25 search did not return before the deadline, using kNN hits only");
+            return List.of();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("BM25 search failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the BM25 search", e);
+        }
+    }
+
+    /**
+     * Runs a kNN search with {@code num_candidates} taken from the configuration, or 1.5 times the number
+     * of requested hits like the vector store, and a minimal cosine similarity of 0.
+     *
+     * @param queryEmbedding query embedding
+     * @param filter pre-filter of the kNN candidates, empty to search the whole index
+     * @param k number of hits
+     * @param deadline time by which the search should return
+     * @return hits, most similar first
+     */
+    private List<Hit<IndexedChunk>> knnSearch(float[] queryEmbedding, List<Query> filter, int k, Deadline deadline) {
+        int candidates = numCandidates > 0 ? Math.max(numCandidates, k) : (int) (1.5 * k);
+        return search(knnDegraded, s -> s
+                .index(indexName)
+                .timeout(searchTimeout(deadline))
+                .knn(knn -> knn
+                        .field(EMBEDDING_FIELD)
+                        .queryVector(EmbeddingUtils.toList(queryEmbedding))
+                        .k(k)
+                        .numCandidates(candidates)
+                        .similarity(0f)
+                        .filter(filter))
+                .size(k)
+                .source(src -> src.filter(f -> f.excludes(EMBEDDING_FIELD))));
+    }
+
+    /**
+     * Runs a BM25 match of the query on the chunk text.
+     *
+     * @param query user query
+     * @param filter filter of the matched chunks, empty to search the whole index
+     * @param deadline time by which the search should return
+     * @return hits, best match first
+     */
+    private List<Hit<IndexedChunk>> bm25Search(String query, List<Query> filter, Deadline deadline) {
+        return search(bm25Degraded, s -> s
+                .index(indexName)
+                .timeout(searchTimeout(deadline))
+                .query(q -> q.bool(b -> b
+                        .must(m -> m.match(t -> t.field(CONTENT_FIELD).query(query)))
+                        .filter(filter)))
+                .size(rankWindowSize)
+                .source(src -> src.filter(f -> f.excludes(EMBEDDING_FIELD))));
+    }
+
+    /**
+     * Formats the time left before a deadline as an Elasticsearch search timeout.
+     *
+     * @param deadline time by which the search should return
+     * @return timeout in milliseconds, at least {@link #MIN_SEARCH_TIMEOUT}
+     */
+    private static String searchTimeout(Deadline deadline) {
+        Duration remaining = deadline.remaining();
+        return Math.max(remaining.toMillis(), MIN_SEARCH_TIMEOUT.toMillis()) + "ms";
+    }
+
+    /**
+     * Sends a search request to the vector index.
+     *
+     * @param timedOut counter of searches returning partial hits because their timeout elapsed
+     * @param request search request builder
+     * @return hits of the search
+     */
+    private List<Hit<IndexedChunk>> search(Counter timedOut,
+                                           Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>> request) {
+        try {
+            SearchResponse<IndexedChunk> response = client.search(request, IndexedChunk.class);
+            if (response.timedOut()) {
+                timedOut.increment();
+                log.warn("Search on index {} timed out, returning {} partial hit(s)",
+                        indexName, response.hits().hits().size());
+            }
+            return response.hits().hits();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to search index " + indexName, e);
+        }
+    }
+
+    /**
+     * Fuses two rankings with reciprocal rank fusion: each chunk scores {@code 1 / (rankConstant + rank)}
+     * for every ranking it appears in. Chunks found by the kNN search keep their similarity score and distance,
+     * so scores stay comparable with dense retrieval; the fused score is stored under {@link #RRF_SCORE}.
+     *
+     * @param dense kNN hits, most similar first
+     * @param lexical BM25 hits, best match first
+     * @return top k chunks by fused score, best first
+     */
+    private List<Document> fuse(List<Hit<IndexedChunk>> dense, List<Hit<IndexedChunk>> lexical) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (int rank = 0; rank < dense.size(); rank++) {
+            Document document = toDocument(dense.get(rank));
+            documents.put(document.getId(), document);
+            scores.merge(document.getId(), 1.0 / (rankConstant + rank + 1), Double::sum);
+        }
+        for (int rank = 0; rank < lexical.size(); rank++) {
+            IndexedChunk chunk = lexical.get(rank).source();
+            documents.computeIfAbsent(chunk.id(), id -> toDocument(chunk, null));
+            scores.merge(chunk.id(), 1.0 / (rankConstant + rank + 1), Double::sum);
+        }
+        return documents.values().stream()
+                .sorted(Comparator.comparingDouble((Document document) -> scores.get(document.getId())).reversed())
+                .limit(topK)
+                .map(document -> document.mutate().metadata(RRF_SCORE, scores.get(document.getId())).build())
+                .toList();
+    }
+
+    /**
+     * Builds the kNN pre-filter of a scope: one terms query per restricted field.
+     *
+     * @param scope folders, documents and file names to search
+     * @return filter queries, all of which must match
+     */
+    static List<Query> scopeFilter(RetrievalScope scope) {
+        List<Query> filter = new ArrayList<>(3);
+        addTerms(filter, "folderId", scope.folderIds());
+        addTerms(filter, "documentId", scope.documentIds());
+        addTerms(filter, "fileName", scope.fileNames());
+        return filter;
+    }
+
+    /**
+     * Adds a match on any of the values of a string metadata field.
+     *
+     * @param filter filter queries
+     * @param key metadata key
+     * @param values accepted values, nothing is added if empty
+     */
+    private static void addTerms(List<Query> filter, String key, List<String> values) {
+        if (values.isEmpty()) return;
+        filter.add(VectorIndexOperations.metadataTerms(key, values));
+    }
+
+    /**
+     * Converts a kNN hit to a document, normalising the cosine score to [0, 1] like the vector store does.
+     *
+     * @param hit search hit
+     * @return retrieved chunk with its score and distance
+     */
+    private static Document toDocument(Hit<IndexedChunk> hit) {
+        return toDocument(hit.source(), hit.score() != null ? 2 * hit.score() - 1 : 0);
+    }
+
+    /**
+     * Converts an indexed chunk to a document.
+     *
+     * @param chunk indexed chunk
+     * @param score normalised similarity score, null if the chunk was not found by the kNN search
+     * @return retrieved chunk
+     */
+    private static Document toDocument(IndexedChunk chunk, Double score) {
+        Map<String, Object> metadata = chunk.metadata() != null ? chunk.metadata() : new HashMap<>();
+        if (score != null) {
+            metadata.put(DocumentMetadata.DISTANCE.value(), 1 - score);
+        }
+        return Document.builder()
+                .id(chunk.id())
+                .text(chunk.content())
+                .metadata(metadata)
+                .score(score)
+                .build();
+    }
+
+    /**
+     * Stops the query embedding and BM25 search threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        queryEmbeddings.shutdown();
+        lexicalSearches.shutdown();
+    }
+
+    /**
+     * Source of a chunk stored by the vector store, without its embedding.
+     *
+     * @param id chunk ID
+     * @param content chunk text
+     * @param metadata chunk metadata
+     */
+    record IndexedChunk(String id, String content, Map<String, Object> metadata) {
+    }
+}
@@ -0,0 +1,53 @@
+package org.alfresco.ai_framework.chat;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which a chat request has to be answered, measured on the monotonic clock.
+ * Each step of the request takes a slice of the remaining time, so a slow step leaves less time
+ * to the following ones instead of pushing the answer past the deadline.
+ */
+public final class Deadline {
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Creates a deadline the given time from now.
+     *
+     * @param timeout time left to answer
+     * @return deadline
+     */
+    public static Deadline in(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Returns the time left, never negative.
+     *
+     * @return remaining time
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * Creates the deadline of a step allowed to use a fraction of the remaining time.
+     *
+     * @param fraction share of the remaining time, between 0 and 1
+     * @return deadline of the step, never later than this deadline
+     */
+    public Deadline slice(double fraction) {
+        long now = System.nanoTime();
+        long remaining = Math.max(0, expiresAtNanos - now);
+        return new Deadline(now + (long) (remaining * Math.min(1, Math.max(0, fraction))));
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining() + "]";
+    }
+}
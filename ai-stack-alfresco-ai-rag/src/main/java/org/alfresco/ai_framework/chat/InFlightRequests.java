@@ -0,0 +1,101 @@
+package org.alfresco.ai_framework.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight registry: a request identical to one already in progress attaches to its result
+ * instead of being computed again.
+ *
+ * @param <K> request key
+ * @param <V> result shared by the identical requests
+ */
+class InFlightRequests<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    /**
+     * Creates the registry and registers its metrics in the given meter registry.
+     *
+     * @param name name of the coalesced requests, used as the metric tag
+     * @param meterRegistry registry exposing the number of in-flight and coalesced requests
+     */
+    InFlightRequests(String name, MeterRegistry meterRegistry) {
+        Gauge.builder("ai.chat.in-flight", inFlight, Map::size).tag("endpoint", name).register(meterRegistry);
+        this.coalesced = Counter.builder("ai.chat.coalesced").tag("endpoint", name).register(meterRegistry);
+    }
+
+    /**
+     * Computes the result of a request, or waits for the result of the identical request in progress.
+     * The key is released as soon as the result is computed.
+     *
+     * @param key request key
+     * @param computation computes the result
+     * @return result shared with identical concurrent requests
+     */
+    V execute(K key, Supplier<V> computation) {
+        return executeUntilReleased(key, release -> {
+            try {
+                return computation.get();
+            } finally {
+                release.run();
+            }
+        });
+    }
+
+    /**
+     * Computes the result of a request, or waits for the result of the identical request in progress.
+     * The key stays in flight until the computation runs the release callback it is given, so a result
+     * that keeps producing data after it is returned, like a stream, can be joined until it terminates.
+     * The key is released automatically if the computation fails, with an exception or an error,
+     * and the waiting requests fail with it.
+     *
+     * @param key request key
+     * @param computation computes the result, given the callback releasing the key
+     * @return result shared with identical concurrent requests
+     */
+    V executeUntilReleased(K key, Function<Runnable, V> computation) {
+        CompletableFuture<V> result = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        Runnable release = () -> inFlight.remove(key, result);
+        try {
+            V value = computation.apply(release);
+            result.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Errors too, otherwise identical requests would wait forever on a result never completed
+            release.run();
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the result of the request in progress, rethrowing its failure.
+     *
+     * @param result result of the request in progress
+     * @return computed result
+     */
+    private static <V> V await(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.alfresco.ai_framework.chat;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * Context documents packed into the prompt token budget.
+ *
+ * @param documents documents put into the prompt, most relevant first
+ * @param retrievedTokens token count of all retrieved chunks
+ * @param packedTokens token count of the packed documents
+ */
+public record PackedContext(List<Document> documents, int retrievedTokens, int packedTokens) {
+
+    /**
+     * Returns the number of prompt tokens saved by packing. Joining merged chunks may take a few more tokens
+     * than the chunks alone, so the count is never negative.
+     *
+     * @return retrieved minus packed tokens, at least 0
+     */
+    public int savedTokens() {
+        return Math.max(0, retrievedTokens - packedTokens);
+    }
+}
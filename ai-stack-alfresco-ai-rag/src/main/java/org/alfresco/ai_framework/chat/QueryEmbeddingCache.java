@@ -0,0 +1,85 @@
+package org.alfresco.ai_framework.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.embedding.EmbeddingBatchScheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded, time-limited cache of chat query embeddings keyed by the normalised query text,
+ * so a repeated question is searched without another round-trip to the embedding model.
+ * Queries are kept apart from the {@link org.alfresco.ai_framework.embedding.EmbeddingCache} of document chunks,
+ * so a bulk ingestion does not evict them, and are embedded through the interactive lane of the batch scheduler.
+ */
+@Slf4j
+@Component
+public class QueryEmbeddingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final EmbeddingBatchScheduler embeddingBatchScheduler;
+    private final Cache<String, float[]> cache;
+
+    /**
+     * Creates the cache and registers its metrics in the given meter registry.
+     *
+     * @param embeddingBatchScheduler scheduler embedding queries on a miss
+     * @param maxEntries maximum number of cached queries
+     * @param ttl how long an embedding is reused after it was computed
+     * @param meterRegistry registry exposing hit, miss, eviction and size metrics
+     */
+    public QueryEmbeddingCache(EmbeddingBatchScheduler embeddingBatchScheduler,
+                               @Value("${ai.chat.query-embedding.cache.max-entries:10000}") long maxEntries,
+                               @Value("${ai.chat.query-embedding.cache.ttl:PT1H}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.embeddingBatchScheduler = embeddingBatchScheduler;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        FunctionCounter.builder("ai.chat.query-embedding.cache.hits", cache, c -> c.stats().hitCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.chat.query-embedding.cache.misses", cache, c -> c.stats().missCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.chat.query-embedding.cache.evictions", cache, c -> c.stats().evictionCount())
+                .register(meterRegistry);
+        Gauge.builder("ai.chat.query-embedding.cache.hit-ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+        Gauge.builder("ai.chat.query-embedding.cache.size", cache, Cache::estimatedSize).register(meterRegistry);
+        log.info("Query embedding cache initialized, max entries: {}, ttl: {}", maxEntries, ttl);
+    }
+
+    /**
+     * Returns the embedding of a query, computing it with the embedding model on a miss.
+     * Queries differing only in case, Unicode form or whitespace share one entry, and concurrent misses
+     * of the same query wait for a single embedding call.
+     *
+     * @param query user query
+     * @return query embedding
+     */
+    public float[] embed(String query) {
+        return cache.get(normalize(query), key -> embeddingBatchScheduler.embed(query.strip()));
+    }
+
+    /**
+     * Normalises a query for use as a cache key.
+     *
+     * @param query user query
+     * @return query in NFKC form, lower case, with collapsed whitespace
+     */
+    static String normalize(String query) {
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC).strip().toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(normalized).replaceAll(" ");
+    }
+}
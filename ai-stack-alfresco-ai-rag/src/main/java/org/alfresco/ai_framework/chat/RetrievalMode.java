@@ -0,0 +1,17 @@
+package org.alfresco.ai_framework.chat;
+
+/**
+ * How the context of a chat answer is retrieved.
+ */
+public enum RetrievalMode {
+
+    /**
+     * kNN search on the chunk embeddings only.
+     */
+    DENSE,
+
+    /**
+     * BM25 match on the chunk text and kNN search run in parallel, fused with reciprocal rank fusion.
+     */
+    HYBRID
+}
@@ -0,0 +1,34 @@
+package org.alfresco.ai_framework.chat;
+
+import java.util.List;
+
+/**
+ * Restricts chat retrieval to chunks of the given folders, documents and file names.
+ * Values of one field are alternatives, different fields must all match; an empty list does not restrict the field.
+ *
+ * @param folderIds IDs of the folders to search
+ * @param documentIds IDs of the documents to search
+ * @param fileNames names of the files to search
+ */
+public record RetrievalScope(List<String> folderIds, List<String> documentIds, List<String> fileNames) {
+
+    /**
+     * Scope covering the whole index.
+     */
+    public static final RetrievalScope ALL = new RetrievalScope(List.of(), List.of(), List.of());
+
+    public RetrievalScope {
+        folderIds = folderIds != null ? List.copyOf(folderIds) : List.of();
+        documentIds = documentIds != null ? List.copyOf(documentIds) : List.of();
+        fileNames = fileNames != null ? List.copyOf(fileNames) : List.of();
+    }
+
+    /**
+     * Tells whether the scope covers the whole index.
+     *
+     * @return true if no field is restricted
+     */
+    public boolean isAll() {
+        return folderIds.isEmpty() && documentIds.isEmpty() && fileNames.isEmpty();
+    }
+}
@@ -0,0 +1,14 @@
+package org.alfresco.ai_framework.chat;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * Result of the retrieval step of a chat request.
+ *
+ * @param queryEmbedding embedding of the user query, null if the query was not embedded before the deadline
+ * @param documents retrieved chunks, most similar first
+ */
+public record RetrievedContext(float[] queryEmbedding, List<Document> documents) {
+}
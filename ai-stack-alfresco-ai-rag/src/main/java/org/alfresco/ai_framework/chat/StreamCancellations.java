@@ -0,0 +1,63 @@
+package org.alfresco.ai_framework.chat;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the answer streams being sent to clients, so a client can stop its stream explicitly
+ * in addition to disconnecting. Stopping a stream cancels its subscription, which aborts the generation
+ * once no other coalesced client is subscribed to it.
+ */
+@Slf4j
+@Component
+public class StreamCancellations {
+
+    private final Map<String, Sinks.Empty<Void>> streams = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a stream under a new ID until it terminates. The ID is registered at once, so a stream
+     * cancelled before the client subscribes to it ends as soon as it is subscribed to.
+     *
+     * @param content answer fragments sent to one client
+     * @return the stream ID and the fragments, ending early when the stream is cancelled
+     */
+    public CancellableStream register(Flux<String> content) {
+        String streamId = UUID.randomUUID().toString();
+        Sinks.Empty<Void> cancellation = Sinks.empty();
+        streams.put(streamId, cancellation);
+        Flux<String> cancellable = content.takeUntilOther(cancellation.asMono())
+                .doFinally(signal -> streams.remove(streamId));
+        return new CancellableStream(streamId, cancellable);
+    }
+
+    /**
+     * Stops a stream.
+     *
+     * @param streamId ID returned when the stream was registered
+     * @return true if the stream was running
+     */
+    public boolean cancel(String streamId) {
+        Sinks.Empty<Void> cancellation = streams.remove(streamId);
+        if (cancellation == null) {
+            return false;
+        }
+        log.info("Stream {} cancelled by the client", streamId);
+        cancellation.tryEmitEmpty();
+        return true;
+    }
+
+    /**
+     * An answer stream that can be cancelled by ID.
+     *
+     * @param streamId stream ID
+     * @param content answer fragments
+     */
+    public record CancellableStream(String streamId, Flux<String> content) {
+    }
+}
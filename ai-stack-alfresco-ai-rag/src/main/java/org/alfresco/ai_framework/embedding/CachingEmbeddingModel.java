@@ -0,0 +1,163 @@
+package org.alfresco.ai_framework.embedding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embedding model decorator that serves vectors from the {@link EmbeddingCache} and only forwards
+ * texts that were never embedded before to the underlying model. Identical texts within one request
+ * (e.g. boilerplate chunks) are embedded once. Only vectors of batch requests, i.e. document chunks,
+ * are persisted; single texts such as chat queries are cached in memory. The time spent embedding the chunks
+ * of ingested documents is published as the {@code embed} phase of {@code ai.ingestion.phase}.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingCache cache;
+    private final String defaultModel;
+    private final Timer documentEmbedding;
+
+    /**
+     * Constructs the decorator.
+     *
+     * @param delegate model used for cache misses
+     * @param cache cache of already computed vectors
+     * @param defaultModel model name used in cache keys when the request does not specify one
+     * @param meterRegistry registry exposing the duration of document embedding
+     */
+    public CachingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache cache, String defaultModel,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.defaultModel = defaultModel;
+        this.documentEmbedding = Timer.builder("ai.ingestion.phase")
+                .tag("phase", "embed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Embeds the documents written to the vector store, in batches.
+     *
+     * @param documents documents to embed
+     * @param options embedding options
+     * @param batchingStrategy strategy splitting the documents into requests
+     * @return embeddings in the order of the documents
+     */
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        return documentEmbedding.record(() -> EmbeddingModel.super.embed(documents, options, batchingStrategy));
+    }
+
+    /**
+     * Embeds the request texts, calling the delegate only for texts missing from the cache.
+     *
+     * @param request embedding request
+     * @return embeddings in the order of the request instructions
+     */
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        String model = modelName(request.getOptions());
+        float[][] vectors = new float[texts.size()][];
+
+        // Group the positions of every text missing from the cache, so duplicates are embedded once
+        Map<String, List<Integer>> misses = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            List<Integer> pending = misses.get(text);
+            if (pending != null) {
+                pending.add(i);
+                continue;
+            }
+            float[] cached = cache.get(model, text);
+            if (cached != null) {
+                vectors[i] = cached;
+            } else {
+                pending = new ArrayList<>();
+                pending.add(i);
+                misses.put(text, pending);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            List<String> missingTexts = new ArrayList<>(misses.keySet());
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(missingTexts, request.getOptions()));
+            for (int j = 0; j < missingTexts.size(); j++) {
+                float[] vector = response.getResults().get(j).getOutput();
+                cache.put(model, missingTexts.get(j), vector, true);
+                for (int index : misses.get(missingTexts.get(j))) {
+                    vectors[index] = vector;
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            embeddings.add(new Embedding(vectors[i], i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    /**
+     * Embeds a single text, forwarding a cache miss as a single-text call so the delegate
+     * can tell interactive query embeddings from bulk requests.
+     *
+     * @param text text to embed
+     * @return embedding vector
+     */
+    @Override
+    public float[] embed(String text) {
+        float[] cached = cache.get(defaultModel, text);
+        if (cached != null) {
+            return cached;
+        }
+        float[] vector = delegate.embed(text);
+        cache.put(defaultModel, text, vector, false);
+        return vector;
+    }
+
+    /**
+     * Embeds the formatted content of a document, consistent with the Ollama embedding model.
+     *
+     * @param document document to embed
+     * @return embedding vector
+     */
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent());
+    }
+
+    /**
+     * Delegates to the underlying model, which caches the dimensions per model name.
+     *
+     * @return number of embedding dimensions
+     */
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * Resolves the model name used in cache keys.
+     *
+     * @param options request options, possibly without a model
+     * @return model name
+     */
+    private String modelName(EmbeddingOptions options) {
+        return options != null && StringUtils.isNotBlank(options.getModel()) ? options.getModel() : defaultModel;
+    }
+}
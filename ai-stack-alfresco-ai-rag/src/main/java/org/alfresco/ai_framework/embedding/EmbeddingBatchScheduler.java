@@ -0,0 +1,422 @@
+package org.alfresco.ai_framework.embedding;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.admission.Bulkhead;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedding model decorator that collects texts from all concurrent callers and sends them to the
+ * underlying model in micro-batches, flushed when a token budget is reached or a short wait window expires.
+ * Single-text embeddings (chat queries) use a priority lane: they are batched apart from bulk texts, flushed
+ * after a shorter wait and sent first, with one sender reserved for them, so bulk ingestion neither delays
+ * nor fails interactive requests. Bulk requests are admitted through the ingestion {@link Bulkhead}.
+ */
+@Slf4j
+public class EmbeddingBatchScheduler implements EmbeddingModel, AutoCloseable {
+
+    /**
+     * Scheduling lanes, in priority order.
+     */
+    enum Lane { INTERACTIVE, BULK }
+
+    private final EmbeddingModel delegate;
+    private final Bulkhead bulkBulkhead;
+    private final int maxBatchTokens;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long interactiveMaxWaitNanos;
+
+    private final Deque<PendingText> interactive = new ArrayDeque<>();
+    private final Deque<PendingText> bulk = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private final int bulkSenders;
+    private int busyBulkSenders;
+    private boolean interactiveSenderBusy;
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSize;
+    private final Timer interactiveWait;
+    private final Timer bulkWait;
+
+    /**
+     * Creates the scheduler and starts its dispatcher thread.
+     *
+     * @param delegate model receiving the batched requests
+     * @param maxBatchTokens estimated token budget of a batch
+     * @param maxBatchSize maximum number of texts in a batch
+     * @param maxWaitMillis how long a bulk batch waits for more texts before it is flushed
+     * @param interactiveMaxWaitMillis how long a batch containing interactive texts waits before it is flushed
+     * @param maxConcurrentBatches number of batches sent to the model at the same time, at least two; one sender
+     *                             is reserved for interactive batches
+     * @param bulkBulkhead bulkhead admitting bulk requests
+     * @param meterRegistry registry exposing batch size and queue wait metrics
+     */
+    public EmbeddingBatchScheduler(EmbeddingModel delegate, int maxBatchTokens, int maxBatchSize, long maxWaitMillis,
+                                   long interactiveMaxWaitMillis, int maxConcurrentBatches, Bulkhead bulkBulkhead,
+                                   MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.bulkBulkhead = bulkBulkhead;
+        this.maxBatchTokens = maxBatchTokens;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.interactiveMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(interactiveMaxWaitMillis);
+        this.bulkSenders = Math.max(1, maxConcurrentBatches - 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(bulkSenders + 1, runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSize = DistributionSummary.builder("ai.embedding.batch.size").register(meterRegistry);
+        this.interactiveWait = Timer.builder("ai.embedding.batch.wait")
+                .tag("lane", "interactive")
+                .register(meterRegistry);
+        this.bulkWait = Timer.builder("ai.embedding.batch.wait").tag("lane", "bulk").register(meterRegistry);
+        this.dispatcher = new Thread(this::dispatch, "embedding-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Embeds the request texts through the bulk lane, blocking until all of them are embedded.
+     *
+     * @param request embedding request
+     * @return embeddings in the order of the request instructions
+     * @throws org.alfresco.ai_framework.admission.AdmissionRejectedException if the bulkhead rejects the request
+     */
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        try (Bulkhead.Permit permit = bulkBulkhead.acquire()) {
+            List<CompletableFuture<float[]>> futures = new ArrayList<>(request.getInstructions().size());
+            for (String text : request.getInstructions()) {
+                futures.add(submit(text, request.getOptions(), Lane.BULK));
+            }
+            List<Embedding> embeddings = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                embeddings.add(new Embedding(await(futures.get(i)), i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+    }
+
+    /**
+     * Embeds a single text through the interactive lane.
+     *
+     * @param text text to embed
+     * @return embedding vector
+     */
+    @Override
+    public float[] embed(String text) {
+        return await(submit(text, null, Lane.INTERACTIVE));
+    }
+
+    /**
+     * Embeds a few texts through the interactive lane, for texts embedded on behalf of a waiting request
+     * rather than ingested; they are not admitted through the ingestion bulkhead.
+     *
+     * @param texts texts to embed
+     * @return embedding vectors in the order of the texts
+     */
+    public List<float[]> embedInteractive(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = texts.stream()
+                .map(text -> submit(text, null, Lane.INTERACTIVE))
+                .toList();
+        return futures.stream().map(EmbeddingBatchScheduler::await).toList();
+    }
+
+    /**
+     * Embeds the formatted content of a document through the interactive lane.
+     *
+     * @param document document to embed
+     * @return embedding vector
+     */
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent());
+    }
+
+    /**
+     * Delegates to the underlying model, which caches the dimensions per model name.
+     *
+     * @return number of embedding dimensions
+     */
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * Queues a text on the given lane.
+     *
+     * @param text text to embed
+     * @param options request options, batched only with texts using the same model
+     * @param lane scheduling lane
+     * @return future completed with the embedding vector
+     */
+    private CompletableFuture<float[]> submit(String text, EmbeddingOptions options, Lane lane) {
+        PendingText pending = new PendingText(text, options, lane, System.nanoTime(), new CompletableFuture<>());
+        lock.lock();
+        try {
+            if (!running) throw new IllegalStateException("Embedding scheduler is shut down");
+            (lane == Lane.INTERACTIVE ? interactive : bulk).addLast(pending);
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+        return pending.result();
+    }
+
+    /**
+     * Dispatcher loop: forms the next batch once a sender is free for it and hands it over.
+     */
+    private void dispatch() {
+        while (running) {
+            try {
+                Batch batch = nextBatch();
+                if (batch == null) {
+                    continue;
+                }
+                try {
+                    senders.execute(() -> {
+                        try {
+                            send(batch.texts());
+                        } finally {
+                            release(batch);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    release(batch);
+                    batch.texts().forEach(pending -> pending.result().completeExceptionally(e));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Collects the next batch from a single lane, until the token budget or batch size is reached or the wait
+     * window of the oldest text in the batch expires. Interactive texts are taken first, on the reserved sender
+     * or any free bulk sender; a bulk batch being collected is flushed as soon as an interactive text arrives.
+     *
+     * @return texts of the next batch and the sender they take, null on shutdown
+     * @throws InterruptedException if the dispatcher is interrupted
+     */
+    private Batch nextBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            Lane lane = null;
+            while (lane == null) {
+                if (!running) return null;
+                if (!interactive.isEmpty() && (!interactiveSenderBusy || busyBulkSenders < bulkSenders)) {
+                    lane = Lane.INTERACTIVE;
+                } else if (!bulk.isEmpty() && busyBulkSenders < bulkSenders) {
+                    lane = Lane.BULK;
+                } else {
+                    ready.await();
+                }
+            }
+
+            Deque<PendingText> queue = lane == Lane.INTERACTIVE ? interactive : bulk;
+            long maxWait = lane == Lane.INTERACTIVE ? interactiveMaxWaitNanos : maxWaitNanos;
+            List<PendingText> batch = new ArrayList<>();
+            String model = null;
+            int tokens = 0;
+            long deadline = 0;
+            while (true) {
+                PendingText next = nextCompatible(queue, batch, model);
+                while (next != null && batch.size() < maxBatchSize
+                        && (batch.isEmpty() || tokens + estimateTokens(next.text()) <= maxBatchTokens)) {
+                    queue.remove(next);
+                    if (batch.isEmpty()) {
+                        model = modelOf(next.options());
+                        deadline = next.enqueuedNanos() + maxWait;
+                    }
+                    batch.add(next);
+                    tokens += estimateTokens(next.text());
+                    next = nextCompatible(queue, batch, model);
+                }
+                long remaining = deadline - System.nanoTime();
+                boolean full = next != null || batch.size() >= maxBatchSize;
+                boolean interactiveWaiting = lane == Lane.BULK && !interactive.isEmpty();
+                if (full || remaining <= 0 || interactiveWaiting || !running) {
+                    break;
+                }
+                ready.awaitNanos(remaining);
+            }
+
+            boolean reservedSender = lane == Lane.INTERACTIVE && !interactiveSenderBusy;
+            if (reservedSender) {
+                interactiveSenderBusy = true;
+            } else {
+                busyBulkSenders++;
+            }
+            return new Batch(batch, reservedSender);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the sender taken by a batch.
+     *
+     * @param batch batch that was sent
+     */
+    private void release(Batch batch) {
+        lock.lock();
+        try {
+            if (batch.reservedSender()) {
+                interactiveSenderBusy = false;
+            } else {
+                busyBulkSenders--;
+            }
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the oldest queued text of a lane that can join a batch for the given model.
+     *
+     * @param queue texts queued on the lane
+     * @param batch texts already in the batch
+     * @param model model of the batch, null for the default model
+     * @return the next compatible text, or null if none is queued
+     */
+    private static PendingText nextCompatible(Deque<PendingText> queue, List<PendingText> batch, String model) {
+        for (PendingText pending : queue) {
+            if (batch.isEmpty() || Objects.equals(model, modelOf(pending.options()))) {
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends one batch to the underlying model and completes the futures of its texts.
+     *
+     * @param batch texts of the batch
+     */
+    private void send(List<PendingText> batch) {
+        long now = System.nanoTime();
+        for (PendingText pending : batch) {
+            (pending.lane() == Lane.INTERACTIVE ? interactiveWait : bulkWait)
+                    .record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+        try {
+            List<String> texts = batch.stream().map(PendingText::text).toList();
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(texts, batch.get(0).options()));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(response.getResults().get(i).getOutput());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Embedding batch of {} text(s) failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Waits for an embedding, unwrapping failures of the batch it was sent with.
+     *
+     * @param future future of the embedding
+     * @return embedding vector
+     */
+    private static float[] await(CompletableFuture<float[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Estimates the token count of a text, assuming about four characters per token.
+     *
+     * @param text text to estimate
+     * @return estimated token count
+     */
+    private static int estimateTokens(String text) {
+        return text.length() / 4 + 1;
+    }
+
+    /**
+     * Returns the model requested by the options, or null for the default model.
+     *
+     * @param options request options
+     * @return model name or null
+     */
+    private static String modelOf(EmbeddingOptions options) {
+        return options != null ? options.getModel() : null;
+    }
+
+    /**
+     * Stops the dispatcher and fails texts that were not sent yet.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            ready.signalAll();
+            IllegalStateException shutdown = new IllegalStateException("Embedding scheduler is shut down");
+            interactive.forEach(pending -> pending.result().completeExceptionally(shutdown));
+            bulk.forEach(pending -> pending.result().completeExceptionally(shutdown));
+            interactive.clear();
+            bulk.clear();
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.interrupt();
+        senders.shutdown();
+    }
+
+    /**
+     * A text waiting to be embedded.
+     *
+     * @param text text to embed
+     * @param options request options
+     * @param lane scheduling lane
+     * @param enqueuedNanos time the text was queued
+     * @param result future completed with the embedding vector
+     */
+    private record PendingText(String text, EmbeddingOptions options, Lane lane, long enqueuedNanos,
+                               CompletableFuture<float[]> result) {}
+
+    /**
+     * Texts sent together, all from the same lane.
+     *
+     * @param texts texts of the batch
+     * @param reservedSender whether the batch took the sender reserved for interactive batches
+     */
+    private record Batch(List<PendingText> texts, boolean reservedSender) {}
+}
@@ -0,0 +1,306 @@
+package org.alfresco.ai_framework.embedding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of embedding vectors, keyed by the SHA-256 hash of the embedding model name
+ * and the embedded text. Entries are kept in a size-bounded in-memory cache. When a directory is configured,
+ * vectors of document chunks are also persisted on disk, so unchanged chunks survive restarts and never reach
+ * the embedding model twice; query vectors are only kept in memory. The disk store is readable by the owner
+ * only and is swept periodically: entries not read or written within the time to live are deleted, then
+ * the least recently used ones beyond the maximum number of entries.
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+
+    private final Cache<String, float[]> memory;
+    private final Path directory;
+    private final long maxDiskEntries;
+    private final Duration diskTtl;
+    private final ScheduledExecutorService diskSweeps;
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter diskEvictions;
+
+    /**
+     * Creates the cache and registers its counters in the given meter registry.
+     *
+     * @param maxEntries maximum number of vectors kept in memory
+     * @param directory directory of the on-disk store, in the temporary directory by default, blank to keep vectors
+     *                  in memory only
+     * @param maxDiskEntries maximum number of vectors kept on disk
+     * @param diskTtl how long a vector is kept on disk after it was last read or written
+     * @param diskSweepInterval interval between sweeps of the on-disk store
+     * @param meterRegistry registry exposing hit, miss and eviction counters
+     */
+    public EmbeddingCache(@Value("${ai.embedding.cache.max-entries:50000}") long maxEntries,
+                          @Value("${ai.embedding.cache.dir:${java.io.tmpdir}/ai-framework/embedding-cache}")
+                          String directory,
+                          @Value("${ai.embedding.cache.disk.max-entries:500000}") long maxDiskEntries,
+                          @Value("${ai.embedding.cache.disk.ttl:P30D}") Duration diskTtl,
+                          @Value("${ai.embedding.cache.disk.sweep-interval:PT1H}") Duration diskSweepInterval,
+                          MeterRegistry meterRegistry) {
+        this.directory = StringUtils.hasText(directory) ? createDirectory(Paths.get(directory)) : null;
+        this.maxDiskEntries = maxDiskEntries;
+        this.diskTtl = diskTtl;
+        this.memoryHits = Counter.builder("ai.embedding.cache.hits").tag("tier", "memory").register(meterRegistry);
+        this.diskHits = Counter.builder("ai.embedding.cache.hits").tag("tier", "disk").register(meterRegistry);
+        this.misses = Counter.builder("ai.embedding.cache.misses").register(meterRegistry);
+        this.evictions = Counter.builder("ai.embedding.cache.evictions")
+                .tag("tier", "memory")
+                .register(meterRegistry);
+        this.diskEvictions = Counter.builder("ai.embedding.cache.evictions")
+                .tag("tier", "disk")
+                .register(meterRegistry);
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .removalListener((String key, float[] value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) evictions.increment();
+                })
+                .build();
+        Gauge.builder("ai.embedding.cache.size", memory, Cache::estimatedSize).register(meterRegistry);
+        if (this.directory != null) {
+            this.diskSweeps = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "embedding-cache-sweep");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = diskSweepInterval.toMillis();
+            diskSweeps.scheduleWithFixedDelay(this::sweepDisk, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.diskSweeps = null;
+        }
+        log.info("Embedding cache initialized, max in-memory entries: {}, disk store: {}", maxEntries,
+                this.directory != null
+                        ? this.directory + " (max entries: " + maxDiskEntries + ", ttl: " + diskTtl + ")"
+                        : "disabled");
+    }
+
+    @PreDestroy
+    public void close() {
+        if (diskSweeps != null) {
+            diskSweeps.shutdownNow();
+        }
+    }
+
+    /**
+     * Looks up the vector of a text embedded with the given model, first in memory and then on disk.
+     *
+     * @param model embedding model name
+     * @param text embedded text
+     * @return the cached vector, or null on a miss
+     */
+    public float[] get(String model, String text) {
+        String key = key(model, text);
+        float[] vector = memory.getIfPresent(key);
+        if (vector != null) {
+            memoryHits.increment();
+            return vector;
+        }
+        vector = readFromDisk(key);
+        if (vector != null) {
+            diskHits.increment();
+            memory.put(key, vector);
+            return vector;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores the vector of a text embedded with the given model.
+     *
+     * @param model embedding model name
+     * @param text embedded text
+     * @param vector embedding vector
+     * @param persistent whether the vector is also written to the on-disk store, if configured
+     */
+    public void put(String model, String text, float[] vector, boolean persistent) {
+        String key = key(model, text);
+        memory.put(key, vector);
+        if (persistent) {
+            writeToDisk(key, vector);
+        }
+    }
+
+    /**
+     * Builds the content-addressed key of a text embedded with the given model.
+     *
+     * @param model embedding model name
+     * @param text embedded text
+     * @return hex encoded SHA-256 hash
+     */
+    private static String key(String model, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Resolves the file of a key, sharded by the first two hex characters to keep directories small.
+     *
+     * @param key cache key
+     * @return path of the vector file
+     */
+    private Path fileOf(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".bin");
+    }
+
+    /**
+     * Reads a vector from the on-disk store.
+     *
+     * @param key cache key
+     * @return the vector, or null if absent or unreadable
+     */
+    private float[] readFromDisk(String key) {
+        if (directory == null) return null;
+        Path file = fileOf(key);
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            float[] vector = new float[in.readInt()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+            // The modification time tracks the last use, so the sweep evicts the least recently used entries
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            return vector;
+        } catch (IOException e) {
+            log.warn("Failed to read cached embedding {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a vector to the on-disk store through a temporary file, so readers never see partial entries.
+     *
+     * @param key cache key
+     * @param vector embedding vector
+     */
+    private void writeToDisk(String key, float[] vector) {
+        if (directory == null) return;
+        Path file = fileOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(vector.length);
+                for (float v : vector) {
+                    out.writeFloat(v);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to persist cached embedding {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the on-disk entries not used within the time to live, then the least recently used ones
+     * beyond the maximum number of entries.
+     */
+    private void sweepDisk() {
+        List<DiskEntry> entries;
+        try (Stream<Path> files = Files.find(directory, 2, (path, attributes) -> attributes.isRegularFile())) {
+            entries = files.map(DiskEntry::of)
+                    .filter(entry -> entry != null)
+                    .sorted(Comparator.comparing(DiskEntry::lastUsed).reversed())
+                    .toList();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to sweep the embedding cache {}: {}", directory, e.getMessage());
+            return;
+        }
+        Instant expiry = Instant.now().minus(diskTtl);
+        int deleted = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            DiskEntry entry = entries.get(i);
+            if (i >= maxDiskEntries || entry.lastUsed().isBefore(expiry)) {
+                try {
+                    if (Files.deleteIfExists(entry.file())) deleted++;
+                } catch (IOException e) {
+                    log.warn("Failed to evict cached embedding {}: {}", entry.file(), e.getMessage());
+                }
+            }
+        }
+        diskEvictions.increment(deleted);
+        log.debug("Embedding cache sweep: {} entries on disk, {} evicted", entries.size(), deleted);
+    }
+
+    /**
+     * Creates the directory of the on-disk store, readable by the owner only where the file system supports it.
+     *
+     * @param directory directory of the on-disk store
+     * @return the directory
+     */
+    private static Path createDirectory(Path directory) {
+        try {
+            if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createDirectories(directory,
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectories(directory);
+            }
+            return directory;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create the embedding cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * File of the on-disk store with the time it was last read or written.
+     */
+    private record DiskEntry(Path file, Instant lastUsed) {
+
+        static DiskEntry of(Path file) {
+            try {
+                return new DiskEntry(file, Files.getLastModifiedTime(file).toInstant());
+            } catch (IOException e) {
+                // Deleted or replaced concurrently
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.alfresco.ai_framework.embedding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.alfresco.ai_framework.admission.Bulkhead;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Wires the embedding model used by the vector store and the chat retrieval.
+ * The auto-configured Ollama model is wrapped, so every embedding request goes through the cache first
+ * and cache misses from all concurrent callers are sent to Ollama in micro-batches.
+ */
+@Configuration
+public class EmbeddingConfiguration {
+
+    /**
+     * Creates the scheduler batching embedding requests sent to Ollama.
+     *
+     * @param ollamaEmbeddingModel the auto-configured Ollama embedding model
+     * @param maxBatchTokens estimated token budget of a batch
+     * @param maxBatchSize maximum number of texts in a batch
+     * @param maxWaitMillis wait window of bulk batches
+     * @param interactiveMaxWaitMillis wait window of batches containing query embeddings
+     * @param maxConcurrentBatches number of batches sent to Ollama at the same time, one of them reserved for
+     *                             query embeddings
+     * @param ingestionBulkhead bulkhead admitting ingestion embedding requests
+     * @param meterRegistry registry exposing batching metrics
+     * @return batching embedding model
+     */
+    @Bean
+    public EmbeddingBatchScheduler embeddingBatchScheduler(
+            OllamaEmbeddingModel ollamaEmbeddingModel,
+            @Value("${ai.embedding.batch.max-tokens:8192}") int maxBatchTokens,
+            @Value("${ai.embedding.batch.max-size:64}") int maxBatchSize,
+            @Value("${ai.embedding.batch.max-wait-ms:20}") long maxWaitMillis,
+            @Value("${ai.embedding.batch.interactive-max-wait-ms:2}") long interactiveMaxWaitMillis,
+            @Value("${ai.embedding.batch.max-concurrent:2}") int maxConcurrentBatches,
+            @Qualifier("ingestionBulkhead") Bulkhead ingestionBulkhead,
+            MeterRegistry meterRegistry) {
+        return new EmbeddingBatchScheduler(ollamaEmbeddingModel, maxBatchTokens, maxBatchSize, maxWaitMillis,
+                interactiveMaxWaitMillis, maxConcurrentBatches, ingestionBulkhead, meterRegistry);
+    }
+
+    /**
+     * Creates the primary embedding model injected into the vector store.
+     *
+     * @param embeddingBatchScheduler scheduler sending cache misses to Ollama
+     * @param embeddingCache cache of already computed vectors
+     * @param model configured embedding model name
+     * @param meterRegistry registry exposing the duration of document embedding
+     * @return caching embedding model
+     */
+    @Bean
+    @Primary
+    public EmbeddingModel cachingEmbeddingModel(EmbeddingBatchScheduler embeddingBatchScheduler,
+                                                EmbeddingCache embeddingCache,
+                                                @Value("${spring.ai.ollama.embedding.options.model:mxbai-embed-large}")
+                                                String model,
+                                                MeterRegistry meterRegistry) {
+        return new CachingEmbeddingModel(embeddingBatchScheduler, embeddingCache, model, meterRegistry);
+    }
+}
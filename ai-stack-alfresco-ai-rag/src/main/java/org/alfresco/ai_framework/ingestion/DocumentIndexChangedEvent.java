@@ -0,0 +1,11 @@
+package org.alfresco.ai_framework.ingestion;
+
+/**
+ * Published after chunks matching a metadata value were written to or removed from the vector index,
+ * e.g. when a document is ingested or a folder is deleted.
+ *
+ * @param key metadata key of the changed chunks, {@code documentId} or {@code folderId}
+ * @param value metadata value of the changed chunks
+ */
+public record DocumentIndexChangedEvent(String key, String value) {
+}
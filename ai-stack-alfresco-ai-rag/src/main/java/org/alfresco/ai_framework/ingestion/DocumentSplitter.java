@@ -2,10 +2,15 @@ package org.alfresco.ai_framework.ingestion;
 
 import org.springframework.ai.document.Document;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Utility class that splits large documents into smaller parts to bypass current limitations
@@ -13,6 +18,7 @@ import java.util.Map;
  */
 public class DocumentSplitter {
     private static final int MAX_LENGTH = 20000;
+    private static final String PART_NUMBER = "part_number";
 
     /**
      * Splits each document in the input list if it exceeds the configured max length.
@@ -21,7 +27,7 @@ public class DocumentSplitter {
      * @return a list of original and/or split documents
      */
     public static List<Document> splitLargeDocuments(List<Document> documents) {
-        List<Document> result = new ArrayList<>();
+        List<Document> result = new ArrayList<>(documents.size());
 
         for (Document doc : documents) {
             if (doc.getText().length() <= MAX_LENGTH) {
@@ -36,27 +42,28 @@ public class DocumentSplitter {
 
     /**
      * Splits a single document into smaller chunks based on paragraph and sentence boundaries.
+     * Metadata shared by all parts is built once and every part only adds its part number.
      *
      * @param doc the document to split
      * @return a list of smaller documents representing the original
      */
     private static List<Document> splitDocument(Document doc) {
-        List<Document> splits = new ArrayList<>();
         String content = doc.getText();
         int totalLength = content.length();
+        List<Document> splits = new ArrayList<>(totalLength / MAX_LENGTH + 1);
+        Map<String, Object> sharedMetadata = createSplitMetadata(doc);
         int startIndex = 0;
         int partNumber = 1;
 
         while (startIndex < totalLength) {
             int endIndex = findSplitPoint(content, startIndex, MAX_LENGTH);
-            String splitContent = content.substring(startIndex, endIndex);
 
             // Create new document using the builder pattern
             Document splitDoc = Document.builder()
                     .id(doc.getId() + "_part" + partNumber)
-                    .text(splitContent)
+                    .text(content.substring(startIndex, endIndex))
                     .media(doc.getMedia())
-                    .metadata(createSplitMetadata(doc, partNumber))
+                    .metadata(new PartMetadata(sharedMetadata, partNumber))
                     .build();
 
             splits.add(splitDoc);
@@ -68,22 +75,23 @@ public class DocumentSplitter {
     }
 
     /**
-     * Creates metadata for a split document, preserving original info and adding part-specific data.
+     * Creates the metadata shared by all parts of a split document, preserving original info.
      *
      * @param originalDoc the original document
-     * @param partNumber the index of the split part
-     * @return metadata map for the new document part
+     * @return metadata map without the part number
      */
-    private static Map<String, Object> createSplitMetadata(Document originalDoc, int partNumber) {
-        Map<String, Object> newMetadata = new HashMap<>(originalDoc.getMetadata());
-        newMetadata.put("original_document_id", originalDoc.getId());
-        newMetadata.put("part_number", partNumber);
-        newMetadata.put("split_timestamp", System.currentTimeMillis());
-        return newMetadata;
+    private static Map<String, Object> createSplitMetadata(Document originalDoc) {
+        Map<String, Object> sharedMetadata = new HashMap<>(originalDoc.getMetadata());
+        sharedMetadata.put("original_document_id", originalDoc.getId());
+        sharedMetadata.put("split_timestamp", System.currentTimeMillis());
+        sharedMetadata.remove(PART_NUMBER);
+        return sharedMetadata;
     }
 
     /**
      * Finds the best position to split text, preferring paragraph or sentence boundaries.
+     * Both boundary kinds are looked for in one backward pass over the last 20% of the allowed length:
+     * the first paragraph break found wins, otherwise the last sentence end seen is used.
      *
      * @param content full document text
      * @param startIndex start index for this split
@@ -91,55 +99,76 @@ public class DocumentSplitter {
      * @return end index for the split
      */
     private static int findSplitPoint(String content, int startIndex, int maxLength) {
-        int endIndex = Math.min(startIndex + maxLength, content.length());
-
-        // Try to split at a paragraph boundary first
-        if (endIndex < content.length()) {
-            int paragraphEnd = endIndex;
-            while (paragraphEnd > startIndex + maxLength * 0.8) {  // Look back up to 20% of max length
-                if (isParagraphEnd(content, paragraphEnd)) {
-                    return paragraphEnd + 1;  // Include the paragraph break
-                }
-                paragraphEnd--;
-            }
+        int length = content.length();
+        int endIndex = Math.min(startIndex + maxLength, length);
+        if (endIndex >= length) {
+            return endIndex;
+        }
 
-            // If no paragraph break found, try sentence break
-            int sentenceEnd = endIndex;
-            while (sentenceEnd > startIndex + maxLength * 0.8) {
-                if (isSentenceEnd(content, sentenceEnd)) {
-                    return sentenceEnd + 1;
+        int lookBackLimit = startIndex + (int) (maxLength * 0.8);
+        int sentenceEnd = -1;
+        // A boundary needs a following character, so the last character is never inspected
+        for (int i = Math.min(endIndex, length - 2); i > lookBackLimit; i--) {
+            char c = content.charAt(i);
+            char next = content.charAt(i + 1);
+            if (c == '\n') {
+                if (next == '\n') {
+                    return i + 1;  // Include the paragraph break
                 }
-                sentenceEnd--;
+            } else if (sentenceEnd < 0 && (c == '.' || c == '!' || c == '?') && Character.isWhitespace(next)) {
+                sentenceEnd = i;
             }
         }
-
-        return endIndex;
+        return sentenceEnd >= 0 ? sentenceEnd + 1 : endIndex;
     }
 
     /**
-     * Checks if a given index in the content is a paragraph boundary.
-     *
-     * @param content text content
-     * @param index position to check
-     * @return true if paragraph boundary, false otherwise
+     * Read-only view of the shared split metadata plus the part number. The document copies it once
+     * on construction, so no intermediate per-part map is allocated.
      */
-    private static boolean isParagraphEnd(String content, int index) {
-        if (index >= content.length() - 1) return false;
-        return content.charAt(index) == '\n' &&
-                (index + 1 >= content.length() || content.charAt(index + 1) == '\n');
-    }
+    private static class PartMetadata extends AbstractMap<String, Object> {
 
-    /**
-     * Checks if a given index in the content is a sentence boundary.
-     *
-     * @param content text content
-     * @param index position to check
-     * @return true if sentence boundary, false otherwise
-     */
-    private static boolean isSentenceEnd(String content, int index) {
-        if (index >= content.length() - 1) return false;
-        char c = content.charAt(index);
-        char next = content.charAt(index + 1);
-        return (c == '.' || c == '!' || c == '?') && Character.isWhitespace(next);
+        private final Map<String, Object> shared;
+        private final Entry<String, Object> partNumber;
+
+        PartMetadata(Map<String, Object> shared, int partNumber) {
+            this.shared = shared;
+            this.partNumber = new SimpleImmutableEntry<>(PART_NUMBER, partNumber);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> sharedEntries = shared.entrySet().iterator();
+                    return new Iterator<>() {
+                        private boolean partNumberReturned;
+
+                        @Override
+                        public boolean hasNext() {
+                            return sharedEntries.hasNext() || !partNumberReturned;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (sharedEntries.hasNext()) {
+                                return sharedEntries.next();
+                            }
+                            if (partNumberReturned) {
+                                throw new NoSuchElementException();
+                            }
+                            partNumberReturned = true;
+                            return partNumber;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return shared.size() + 1;
+                }
+            };
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,22 @@
 package org.alfresco.ai_framework.ingestion;
 
+import org.alfresco.ai_framework.admission.AdmissionRejectedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
 
 import static org.alfresco.ai_framework.Utils.createFileResource;
 
@@ -23,9 +29,11 @@ public class IngestionController {
     private static final Logger logger = LoggerFactory.getLogger(IngestionController.class);
 
     private final IngestionService ingestionService;
+    private final IngestionJobService ingestionJobService;
 
-    public IngestionController(IngestionService ingestionService) {
+    public IngestionController(IngestionService ingestionService, IngestionJobService ingestionJobService) {
         this.ingestionService = ingestionService;
+        this.ingestionJobService = ingestionJobService;
     }
 
     /**
@@ -35,7 +43,7 @@ public class IngestionController {
      * @param folderId the ID of the folder containing the document
      * @param fileName the name of the file
      * @param file the uploaded file
-     * @return 200 OK on success, 400/500 on failure
+     * @return 200 OK on success, 400/500 on failure, 429/503 with Retry-After if the ingestion bulkhead is saturated
      */
     @PostMapping("/documents")
     public ResponseEntity<String> uploadDocument(
@@ -49,16 +57,59 @@ public class IngestionController {
             return ResponseEntity.ok("Document uploaded successfully with ID: " + documentId);
         } catch (IOException e) {
             return handleException("Failed to process file: ", e, HttpStatus.BAD_REQUEST);
+        } catch (AdmissionRejectedException e) {
+            // Answered with 429/503 and Retry-After by the AdmissionExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return handleException("Failed to ingest document: ", e, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Accepts a document for asynchronous ingestion. The file is spooled to local disk and
+     * a job ID is returned immediately; progress is available from {@code GET /documents/jobs/{jobId}}.
+     *
+     * @param documentId the unique ID of the document
+     * @param folderId the ID of the folder containing the document
+     * @param fileName the name of the file
+     * @param file the uploaded file
+     * @return 202 Accepted with the job status, 400 if the file cannot be spooled, 503 if the job queue is full
+     */
+    @PostMapping(value = "/documents", params = "async=true")
+    public ResponseEntity<?> uploadDocumentAsync(
+            @RequestParam("documentId") String documentId,
+            @RequestParam("folderId") String folderId,
+            @RequestParam("fileName") String fileName,
+            @RequestParam("file") MultipartFile file
+    ) {
+        try {
+            IngestionJobStatus job = ingestionJobService.submit(documentId, folderId, fileName, file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/documents/jobs/" + job.jobId()))
+                    .body(job);
+        } catch (IOException e) {
+            return handleException("Failed to spool file: ", e, HttpStatus.BAD_REQUEST);
+        } catch (RejectedExecutionException e) {
+            return handleException("Ingestion queue is full: ", e, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Returns the status of an asynchronous ingestion job.
+     *
+     * @param jobId the job identifier returned on upload
+     * @return 200 OK with the job status, 404 if the job is unknown or expired
+     */
+    @GetMapping("/documents/jobs/{jobId}")
+    public ResponseEntity<IngestionJobStatus> getJobStatus(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.of(ingestionJobService.getStatus(jobId));
+    }
+
     /**
      * Deletes a document by document ID.
      *
      * @param documentId the ID of the document to delete
-     * @return 200 OK on success, 500 on failure
+     * @return 200 OK on success, 404 if no chunk of the document is indexed, 500 on failure
      */
     @DeleteMapping("/documents")
     public ResponseEntity<String> deleteDocument(@RequestParam("documentId") String documentId) {
@@ -69,7 +120,7 @@ public class IngestionController {
      * Deletes documents in a folder by folder ID.
      *
      * @param folderId the ID of the folder whose documents should be deleted
-     * @return 200 OK on success, 500 on failure
+     * @return 200 OK on success, 404 if no chunk of the folder is indexed, 500 on failure
      */
     @DeleteMapping("/folders")
     public ResponseEntity<String> deleteDocumentsByFolder(@RequestParam("folderId") String folderId) {
@@ -79,15 +130,19 @@ public class IngestionController {
     /**
      * Deletes entities by ID, encapsulating the common deletion logic.
      *
-     * @param deleteAction the action to perform
+     * @param deleteAction the action to perform, returning the number of deleted chunks
      * @param entityType the type of entity (e.g., "document" or "folder")
      * @param id the identifier of the entity
-     * @return 200 OK on success, 500 on failure
+     * @return 200 OK on success, 404 if nothing matched, 500 on failure
      */
-    private ResponseEntity<String> deleteById(Runnable deleteAction, String entityType, String id) {
+    private ResponseEntity<String> deleteById(LongSupplier deleteAction, String entityType, String id) {
         try {
-            deleteAction.run();
-            return ResponseEntity.ok(entityType + " deleted successfully with ID: " + id);
+            long deleted = deleteAction.getAsLong();
+            if (deleted == 0) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No " + entityType + " found with ID: " + id);
+            }
+            return ResponseEntity.ok(
+                    entityType + " deleted successfully with ID: " + id + ", chunks removed: " + deleted);
         } catch (RuntimeException e) {
             return handleException("Failed to delete " + entityType + ": ", e, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,208 @@
+package org.alfresco.ai_framework.ingestion;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.ingestion.IngestionJobStatus.State;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs document ingestions asynchronously. Uploads are spooled to local disk and processed by a bounded
+ * worker pool, so the HTTP request returns as soon as the file is stored and upload throughput is
+ * decoupled from embedding throughput. Job statuses are kept in memory only, so uploads left in the spool
+ * directory by a previous run are deleted at startup.
+ */
+@Slf4j
+@Service
+public class IngestionJobService {
+
+    private final IngestionService ingestionService;
+    private final Path spoolDirectory;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, IngestionJobStatus> jobs;
+
+    /**
+     * Constructs the job service and its worker pool.
+     *
+     * @param ingestionService service performing the ingestion
+     * @param spoolDirectory directory where uploads wait for processing
+     * @param workers number of concurrent ingestion workers
+     * @param queueCapacity maximum number of jobs waiting for a worker
+     * @param retention how long job statuses are kept after their last update
+     * @param meterRegistry registry exposing worker pool metrics
+     * @throws IOException if the spool directory cannot be created or swept
+     */
+    public IngestionJobService(IngestionService ingestionService,
+                               @Value("${ai.ingestion.jobs.spool-dir:${java.io.tmpdir}/ai-ingestion-spool}")
+                               String spoolDirectory,
+                               @Value("${ai.ingestion.jobs.workers:2}") int workers,
+                               @Value("${ai.ingestion.jobs.queue-capacity:100}") int queueCapacity,
+                               @Value("${ai.ingestion.jobs.retention:PT24H}") Duration retention,
+                               MeterRegistry meterRegistry) throws IOException {
+        this.ingestionService = ingestionService;
+        this.spoolDirectory = Files.createDirectories(Paths.get(spoolDirectory));
+        sweepSpoolDirectory();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "ingestion-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.jobs = Caffeine.newBuilder().expireAfterWrite(retention).build();
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "ingestion.jobs");
+    }
+
+    /**
+     * Spools the uploaded file and queues its ingestion.
+     *
+     * @param documentId unique document identifier
+     * @param folderId ID of the folder containing the document
+     * @param fileName name of the file
+     * @param file the uploaded file
+     * @return the status of the queued job
+     * @throws IOException if the file cannot be spooled
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public IngestionJobStatus submit(String documentId, String folderId, String fileName, MultipartFile file)
+            throws IOException {
+        String jobId = UUID.randomUUID().toString();
+        Path spooled = spoolDirectory.resolve(jobId);
+        file.transferTo(spooled);
+
+        IngestionJobStatus queued = new IngestionJobStatus(jobId, documentId, fileName, State.QUEUED,
+                null, Map.of(), null, Instant.now(), null);
+        jobs.put(jobId, queued);
+        try {
+            executor.execute(() -> run(queued, folderId, spooled, file.getOriginalFilename()));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(jobId);
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        log.info("Queued ingestion job {} for document ID: {}", jobId, documentId);
+        return queued;
+    }
+
+    /**
+     * Returns the current status of a job.
+     *
+     * @param jobId the job identifier
+     * @return the job status, empty if unknown or expired
+     */
+    public Optional<IngestionJobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    /**
+     * Processes a queued job and removes its spooled file.
+     *
+     * @param queued the status of the queued job
+     * @param folderId ID of the folder containing the document
+     * @param spooled the spooled upload
+     * @param originalFilename original name of the uploaded file
+     */
+    private void run(IngestionJobStatus queued, String folderId, Path spooled, String originalFilename) {
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        phaseMillis.put("queue", Duration.between(queued.submittedAt(), Instant.now()).toMillis());
+        update(queued, State.RUNNING, null, phaseMillis, null);
+        try {
+            Resource resource = new FileSystemResource(spooled) {
+                @Override
+                public String getFilename() {
+                    return originalFilename;
+                }
+            };
+            IngestionReport report = ingestionService.ingest(queued.documentId(), folderId, queued.fileName(),
+                    resource);
+            phaseMillis.putAll(report.phaseMillis());
+            update(queued, State.COMPLETED, report.chunkCount(), phaseMillis, null);
+        } catch (Throwable e) {
+            // Errors too, otherwise the job would be reported as running forever
+            log.error("Ingestion job {} failed for document ID: {}", queued.jobId(), queued.documentId(), e);
+            update(queued, State.FAILED, null, phaseMillis, e.getMessage() != null ? e.getMessage() : e.toString());
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled file {}: {}", spooled, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes the uploads spooled by a previous run, whose jobs are unknown to this one.
+     *
+     * @throws IOException if the spool directory cannot be listed
+     */
+    private void sweepSpoolDirectory() throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> spooled = Files.newDirectoryStream(spoolDirectory)) {
+            for (Path file : spooled) {
+                try {
+                    if (Files.isRegularFile(file) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to delete stale spooled file {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} stale spooled upload(s) from {}", deleted, spoolDirectory);
+        }
+    }
+
+    /**
+     * Stores a new snapshot of a job.
+     *
+     * @param queued the status the job was queued with
+     * @param state new state
+     * @param chunkCount number of written chunks, if known
+     * @param phaseMillis phase durations so far
+     * @param error failure message, if any
+     */
+    private void update(IngestionJobStatus queued, State state, Integer chunkCount, Map<String, Long> phaseMillis,
+                        String error) {
+        boolean finished = state == State.COMPLETED || state == State.FAILED;
+        jobs.put(queued.jobId(), new IngestionJobStatus(queued.jobId(), queued.documentId(), queued.fileName(), state,
+                chunkCount, Collections.unmodifiableMap(new LinkedHashMap<>(phaseMillis)), error,
+                queued.submittedAt(), finished ? Instant.now() : null));
+    }
+
+    /**
+     * Stops accepting jobs on shutdown; queued uploads stay in the spool directory until the next startup.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,26 @@
+package org.alfresco.ai_framework.ingestion;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Snapshot of an asynchronous ingestion job, returned by the job status API.
+ *
+ * @param jobId unique job identifier
+ * @param documentId the document being ingested
+ * @param fileName name of the uploaded file
+ * @param state current job state
+ * @param chunkCount number of chunks written, once completed
+ * @param phaseMillis duration of each phase in milliseconds, including the time spent waiting in the queue
+ * @param error failure message, if the job failed
+ * @param submittedAt time the upload was accepted
+ * @param finishedAt time the job completed or failed
+ */
+public record IngestionJobStatus(String jobId, String documentId, String fileName, State state, Integer chunkCount,
+                                 Map<String, Long> phaseMillis, String error, Instant submittedAt, Instant finishedAt) {
+
+    /**
+     * Lifecycle states of an ingestion job.
+     */
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+}
@@ -0,0 +1,13 @@
+package org.alfresco.ai_framework.ingestion;
+
+import java.util.Map;
+
+/**
+ * Outcome of a single document ingestion.
+ *
+ * @param documentId the ingested document ID
+ * @param chunkCount number of chunks written to the vector store
+ * @param staleChunks number of chunks of a previous version that were removed
+ * @param phaseMillis duration of each ingestion phase in milliseconds, in execution order
+ */
+public record IngestionReport(String documentId, int chunkCount, long staleChunks, Map<String, Long> phaseMillis) {}
@@ -1,23 +1,33 @@
 package org.alfresco.ai_framework.ingestion;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.tika.TikaDocumentReader;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import static org.alfresco.ai_framework.Utils.addMetadata;
-import static org.alfresco.ai_framework.Utils.transformDocument;
+import static org.alfresco.ai_framework.ingestion.VectorIndexOperations.CHUNK_INDEX;
 
 /**
  * Service for ingesting documents into the vector store, utilizing document parsing and transformation.
+ * The duration of each phase is published under {@code ai.ingestion.phase}.
  */
 @Service
 public class IngestionService {
@@ -25,78 +35,245 @@ public class IngestionService {
     private static final Logger logger = LoggerFactory.getLogger(IngestionService.class);
 
     private final VectorStore vectorStore;
+    private final VectorIndexOperations vectorIndexOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int windowChars;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DocumentLock> documentLocks = new ConcurrentHashMap<>();
 
     /**
      * Constructs the IngestionService with the given vector store.
      *
      * @param vectorStore the vector store used for indexing and deletion
+     * @param vectorIndexOperations native operations on the vector index
+     * @param eventPublisher publisher of {@link DocumentIndexChangedEvent}s
+     * @param windowChars number of extracted characters chunked and indexed at a time
+     * @param meterRegistry registry exposing the duration of each ingestion phase
      */
-    public IngestionService(VectorStore vectorStore) {
+    public IngestionService(VectorStore vectorStore, VectorIndexOperations vectorIndexOperations,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${ai.ingestion.stream.window-chars:65536}") int windowChars,
+                            MeterRegistry meterRegistry) {
         this.vectorStore = vectorStore;
+        this.vectorIndexOperations = vectorIndexOperations;
+        this.eventPublisher = eventPublisher;
+        this.windowChars = windowChars;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
      * Ingests a document into the vector store by reading, transforming, and storing it.
+     * Extracted text is chunked and indexed in bounded windows while Tika is still parsing,
+     * so memory use does not grow with the document size.
+     * Chunks are upserted under IDs derived from the document ID and chunk ordinal, so a re-ingested
+     * document is overwritten in place and only chunks left over from a longer previous version are removed.
+     * Ingestions and deletions of the same document run one at a time, so overlapping ingestions cannot
+     * trim each other's chunks.
      *
      * @param documentId unique document identifier
      * @param folderId ID of the folder containing the document
      * @param fileName name of the file
      * @param file resource to be ingested
+     * @return report with the chunk count and the duration of each phase
      */
-    public void ingest(String documentId, String folderId, String fileName, Resource file) {
+    public IngestionReport ingest(String documentId, String folderId, String fileName, Resource file) {
+        return lockDocument(documentId, () -> write(documentId, folderId, fileName, file));
+    }
+
+    /**
+     * Reads, chunks and indexes a document while holding its lock.
+     *
+     * @param documentId unique document identifier
+     * @param folderId ID of the folder containing the document
+     * @param fileName name of the file
+     * @param file resource to be ingested
+     * @return report with the chunk count and the duration of each phase
+     */
+    private IngestionReport write(String documentId, String folderId, String fileName, Resource file) {
         logger.info("Starting ingestion for document ID: {}, folder: {}", documentId, folderId);
+        long start = System.currentTimeMillis();
+        AtomicInteger chunkCount = new AtomicInteger();
+        AtomicLong splitMillis = new AtomicLong();
+        AtomicLong indexMillis = new AtomicLong();
+
+        try {
+            new StreamingDocumentReader(file, windowChars).read(windowChunks -> {
+                long splitStart = System.currentTimeMillis();
+                addMetadata(windowChunks, documentId, folderId, fileName);
+                List<Document> processedDocs = assignChunkIds(documentId, chunkCount.get(),
+                        DocumentSplitter.splitLargeDocuments(windowChunks));
+                long indexStart = System.currentTimeMillis();
+                splitMillis.addAndGet(indexStart - splitStart);
+
+                if (!processedDocs.isEmpty()) {
+                    vectorStore.add(processedDocs);
+                }
+                chunkCount.addAndGet(processedDocs.size());
+                indexMillis.addAndGet(System.currentTimeMillis() - indexStart);
+            });
+
+            Map<String, Long> phaseMillis = new LinkedHashMap<>();
+            phaseMillis.put("extract", System.currentTimeMillis() - start - splitMillis.get() - indexMillis.get());
+            phaseMillis.put("split", splitMillis.get());
+            phaseMillis.put("index", indexMillis.get());
+            long staleChunks = timed(phaseMillis, "cleanup",
+                    () -> vectorIndexOperations.deleteStaleChunks(documentId, chunkCount.get()));
 
-        List<Document> documents = transformDocument(file);
-        addMetadata(documents, documentId, folderId, fileName);
+            phaseMillis.forEach(this::recordPhase);
+            logger.info("Ingestion complete for document ID: {}, chunks: {}, stale chunks removed: {}, phases: {}",
+                    documentId, chunkCount.get(), staleChunks, phaseMillis);
+            return new IngestionReport(documentId, chunkCount.get(), staleChunks, phaseMillis);
+        } finally {
+            // Chunks may have been overwritten even if the ingestion failed half way
+            eventPublisher.publishEvent(new DocumentIndexChangedEvent("documentId", documentId));
+        }
+    }
+
+    /**
+     * Runs an action on a document once no other ingestion or deletion of that document is running.
+     *
+     * @param documentId unique document identifier
+     * @param action the action to run
+     * @return the result of the action
+     */
+    private <T> T lockDocument(String documentId, Supplier<T> action) {
+        DocumentLock documentLock = documentLocks.compute(documentId, (id, current) -> {
+            DocumentLock held = current != null ? current : new DocumentLock();
+            held.holders++;
+            return held;
+        });
+        documentLock.lock.lock();
+        try {
+            return action.get();
+        } finally {
+            documentLock.lock.unlock();
+            // Forget the lock once no caller holds or waits for it
+            documentLocks.computeIfPresent(documentId, (id, current) -> --current.holders == 0 ? null : current);
+        }
+    }
+
+    /**
+     * Runs an ingestion phase and records its duration.
+     *
+     * @param phaseMillis map collecting phase durations
+     * @param phase phase name
+     * @param action the phase to run
+     * @return the result of the phase
+     */
+    private static <T> T timed(Map<String, Long> phaseMillis, String phase, Supplier<T> action) {
+        long start = System.currentTimeMillis();
+        try {
+            return action.get();
+        } finally {
+            phaseMillis.put(phase, System.currentTimeMillis() - start);
+        }
+    }
 
-        List<Document> processedDocs = DocumentSplitter.splitLargeDocuments(documents);
+    /**
+     * Publishes the duration of an ingestion phase: {@code extract} for the Tika parse, {@code split}
+     * for chunking, {@code index} for embedding and writing the chunks and {@code cleanup}
+     * for removing stale chunks. Embedding alone is published by the embedding model as {@code embed}.
+     *
+     * @param phase phase name
+     * @param millis duration of the phase for one document
+     */
+    private void recordPhase(String phase, long millis) {
+        Timer.builder("ai.ingestion.phase")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
 
-        deleteByDocumentId(documentId);
-        vectorStore.add(processedDocs);
+    /**
+     * Rebuilds the chunks of a document with deterministic IDs and records their ordinal in the metadata.
+     *
+     * @param documentId unique document identifier
+     * @param firstIndex ordinal of the first chunk
+     * @param chunks chunks of the document in reading order
+     * @return chunks with IDs derived from the document ID and chunk ordinal
+     */
+    private static List<Document> assignChunkIds(String documentId, int firstIndex, List<Document> chunks) {
+        List<Document> result = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            Document chunk = chunks.get(i);
+            int chunkIndex = firstIndex + i;
+            chunk.getMetadata().put(CHUNK_INDEX, chunkIndex);
+            result.add(Document.builder()
+                    .id(chunkId(documentId, chunkIndex))
+                    .text(chunk.getText())
+                    .metadata(chunk.getMetadata())
+                    .build());
+        }
+        return result;
+    }
 
-        logger.info("Ingestion complete for document ID: {}", documentId);
+    /**
+     * Builds the ID of a chunk.
+     *
+     * @param documentId unique document identifier
+     * @param chunkIndex ordinal of the chunk within the document
+     * @return chunk ID
+     */
+    static String chunkId(String documentId, int chunkIndex) {
+        return documentId + "_" + chunkIndex;
     }
 
     /**
      * Deletes documents from the vector store matching the specified document ID.
      *
      * @param documentId the document ID to match for deletion
+     * @return number of deleted chunks
      */
-    public void deleteByDocumentId(String documentId) {
-        deleteDocuments("documentId", documentId);
+    public long deleteByDocumentId(String documentId) {
+        return lockDocument(documentId, () -> deleteDocuments("documentId", documentId));
     }
 
     /**
      * Deletes documents from the vector store matching the specified folder ID.
      *
      * @param folderId the folder ID to match for deletion
+     * @return number of deleted chunks
      */
-    public void deleteByFolderId(String folderId) {
-        deleteDocuments("folderId", folderId);
+    public long deleteByFolderId(String folderId) {
+        return deleteDocuments("folderId", folderId);
     }
 
     /**
      * Deletes documents from the vector store that match the specified metadata key and value.
+     * Uses a native delete-by-query, so all matching chunks are removed in one bulk operation.
      *
      * @param key metadata key to filter documents
      * @param value metadata value to match
+     * @return number of deleted chunks
+     * @throws IllegalStateException if the deletion failed or left chunks behind
      */
-    private void deleteDocuments(String key, String value) {
+    private long deleteDocuments(String key, String value) {
         logger.info("Deleting documents with {}: {}", key, value);
 
         try {
-            List<Document> documents = vectorStore.similaritySearch(
-                    SearchRequest.builder().filterExpression("'" + key + "' == '" + value + "'").build()
-            );
-
-            if (!documents.isEmpty()) {
-                vectorStore.delete(documents.stream().map(Document::getId).collect(Collectors.toList()));
-                logger.info("Deleted {} document(s) with {}: {}", documents.size(), key, value);
+            long deleted = vectorIndexOperations.deleteByMetadata(key, value);
+            if (deleted > 0) {
+                logger.info("Deleted {} chunk(s) with {}: {}", deleted, key, value);
             } else {
                 logger.info("No documents found with {}: {}", key, value);
             }
+            return deleted;
         } catch (RuntimeException e) {
             logger.error("Error deleting documents with {}: {}", key, value, e);
+            throw e;
+        } finally {
+            eventPublisher.publishEvent(new DocumentIndexChangedEvent(key, value));
         }
     }
+
+    /**
+     * Lock of one document, counting the callers holding or waiting for it. The count is only changed
+     * within the atomic updates of the lock map.
+     */
+    private static final class DocumentLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int holders;
+    }
 }
@@ -0,0 +1,158 @@
+package org.alfresco.ai_framework.ingestion;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.ExtractedTextFormatter;
+import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.core.io.Resource;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streaming counterpart of {@link TikaDocumentReader} followed by {@link TokenTextSplitter}.
+ * Text is collected from Tika SAX events into a bounded window; each full window is cut at a paragraph
+ * or sentence boundary, split into token chunks and handed to a consumer before parsing continues,
+ * so peak memory depends on the window size rather than on the document size.
+ */
+public class StreamingDocumentReader {
+
+    private static final TokenTextSplitter TOKEN_TEXT_SPLITTER = TokenTextSplitter.builder().build();
+    private static final ExtractedTextFormatter TEXT_FORMATTER = ExtractedTextFormatter.defaults();
+
+    private final Resource resource;
+    private final int windowChars;
+
+    /**
+     * Constructs a reader of the given resource.
+     *
+     * @param resource file to extract
+     * @param windowChars number of characters collected before a window is chunked
+     */
+    public StreamingDocumentReader(Resource resource, int windowChars) {
+        this.resource = resource;
+        this.windowChars = windowChars;
+    }
+
+    /**
+     * Parses the resource and passes the token chunks of every window to the consumer, in reading order.
+     *
+     * @param chunkConsumer receives the chunks of one window at a time
+     */
+    public void read(Consumer<List<Document>> chunkConsumer) {
+        String source = resource.getFilename() != null ? resource.getFilename() : resource.getDescription();
+        WindowWriter writer = new WindowWriter(window -> {
+            String text = TEXT_FORMATTER.format(window);
+            if (!text.isBlank()) {
+                Document document = new Document(text, Map.of(TikaDocumentReader.METADATA_SOURCE, source));
+                chunkConsumer.accept(TOKEN_TEXT_SPLITTER.apply(List.of(document)));
+            }
+        });
+        try (InputStream stream = resource.getInputStream()) {
+            new AutoDetectParser().parse(stream, new BodyContentHandler(writer), new Metadata(), new ParseContext());
+            writer.close();
+        } catch (IOException | SAXException | TikaException e) {
+            // Tika wraps writer failures, so look for a consumer failure anywhere in the cause chain
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof WindowConsumerException consumerException) {
+                    throw consumerException.getCause();
+                }
+            }
+            if (e instanceof IOException ioException) {
+                throw new UncheckedIOException("Failed to read " + source, ioException);
+            }
+            throw new IllegalStateException("Failed to extract text from " + source, e);
+        }
+    }
+
+    /**
+     * Writer receiving the extracted text and emitting it in windows cut at natural boundaries.
+     */
+    private class WindowWriter extends Writer {
+
+        private final StringBuilder buffer = new StringBuilder();
+        private final Consumer<String> windowConsumer;
+
+        WindowWriter(Consumer<String> windowConsumer) {
+            this.windowConsumer = windowConsumer;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            buffer.append(cbuf, off, len);
+            while (buffer.length() >= windowChars) {
+                emit(cutPoint());
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!buffer.isEmpty()) {
+                emit(buffer.length());
+            }
+        }
+
+        /**
+         * Finds the end of the next window, preferring a paragraph break, then a line break,
+         * then a sentence end in the second half of the window.
+         *
+         * @return exclusive end index of the window
+         */
+        private int cutPoint() {
+            int from = windowChars / 2;
+            int paragraph = buffer.lastIndexOf("\n\n", windowChars - 2);
+            if (paragraph >= from) return paragraph + 2;
+            int line = buffer.lastIndexOf("\n", windowChars - 1);
+            if (line >= from) return line + 1;
+            int sentence = buffer.lastIndexOf(". ", windowChars - 2);
+            if (sentence >= from) return sentence + 2;
+            return windowChars;
+        }
+
+        /**
+         * Hands the first characters of the buffer over as a window.
+         *
+         * @param end exclusive end index of the window
+         * @throws IOException wrapping a failure of the consumer, so Tika aborts parsing
+         */
+        private void emit(int end) throws IOException {
+            String window = buffer.substring(0, end);
+            buffer.delete(0, end);
+            try {
+                windowConsumer.accept(window);
+            } catch (RuntimeException e) {
+                throw new WindowConsumerException(e);
+            }
+        }
+    }
+
+    /**
+     * Carries a failure of the chunk consumer through the Tika parser.
+     */
+    private static class WindowConsumerException extends IOException {
+
+        WindowConsumerException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+}
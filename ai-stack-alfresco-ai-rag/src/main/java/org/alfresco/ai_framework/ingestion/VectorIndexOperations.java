@@ -0,0 +1,184 @@
+package org.alfresco.ai_framework.ingestion;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.BulkIndexByScrollFailure;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.DeleteByQueryResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.elasticsearch.ElasticsearchVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Native Elasticsearch operations on the vector index that the generic {@code VectorStore} API cannot express,
+ * executed through the client of the auto-configured vector store.
+ */
+@Slf4j
+@Component
+public class VectorIndexOperations {
+
+    /**
+     * Metadata key holding the ordinal of a chunk within its document.
+     */
+    public static final String CHUNK_INDEX = "chunkIndex";
+
+    private static final String METADATA_PREFIX = "metadata.";
+    private static final String EMBEDDING_FIELD = "embedding";
+
+    private final ElasticsearchClient client;
+    private final String indexName;
+
+    /**
+     * Constructs the operations on the index managed by the given vector store.
+     *
+     * @param vectorStore the auto-configured Elasticsearch vector store
+     * @param indexName name of the vector index
+     */
+    public VectorIndexOperations(ElasticsearchVectorStore vectorStore,
+                                 @Value("${spring.ai.vectorstore.elasticsearch.index-name:spring-ai-document-index}")
+                                 String indexName) {
+        this.client = vectorStore.<ElasticsearchClient>getNativeClient()
+                .orElseThrow(() -> new IllegalStateException("Elasticsearch client is not available"));
+        this.indexName = indexName;
+    }
+
+    /**
+     * Deletes the chunks of a document that were not overwritten by its latest ingestion,
+     * i.e. chunks with an ordinal beyond the new chunk count or without an ordinal at all.
+     *
+     * @param documentId the document ID
+     * @param chunkCount number of chunks of the latest version
+     * @return number of deleted chunks
+     */
+    public long deleteStaleChunks(String documentId, int chunkCount) {
+        Query query = Query.of(q -> q.bool(b -> b
+                .filter(metadataTerm("documentId", documentId))
+                .mustNot(m -> m.range(r -> r.number(n -> n
+                        .field(METADATA_PREFIX + CHUNK_INDEX)
+                        .lt((double) chunkCount))))));
+        return deleteByQuery(query);
+    }
+
+    /**
+     * Deletes every chunk whose metadata field matches the given value in a single delete-by-query,
+     * without embedding a query or paginating through search results.
+     *
+     * @param key metadata key, e.g. documentId or folderId
+     * @param value metadata value to match
+     * @return number of deleted chunks
+     */
+    public long deleteByMetadata(String key, String value) {
+        long deleted = deleteByQuery(metadataTerm(key, value));
+        log.debug("Delete-by-query on {} with {}: {} removed {} chunk(s)", indexName, key, value, deleted);
+        return deleted;
+    }
+
+    /**
+     * Returns the embeddings of a random sample of the chunks whose metadata field matches the given value.
+     *
+     * @param key metadata key, e.g. documentId or folderId
+     * @param value metadata value to match
+     * @param size maximum number of embeddings
+     * @return chunk embeddings
+     */
+    public List<float[]> sampleEmbeddings(String key, String value, int size) {
+        try {
+            return client.search(s -> s
+                            .index(indexName)
+                            .query(q -> q.functionScore(fs -> fs
+                                    .query(metadataTerm(key, value))
+                                    .functions(f -> f.randomScore(r -> r))))
+                            .size(size)
+                            .source(src -> src.filter(f -> f.includes(EMBEDDING_FIELD))),
+                    EmbeddingSource.class)
+                    .hits().hits().stream()
+                    .map(hit -> hit.source() != null ? hit.source().embedding() : null)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to sample embeddings from index " + indexName, e);
+        }
+    }
+
+    /**
+     * Runs a delete-by-query on the vector index, proceeding past version conflicts caused by concurrent upserts
+     * so every other chunk is deleted, then reporting them as a failure, as the conflicting chunks remain.
+     *
+     * @param query the query selecting chunks to delete
+     * @return number of deleted chunks
+     * @throws IllegalStateException if the request failed, or some chunks could not be deleted
+     */
+    private long deleteByQuery(Query query) {
+        DeleteByQueryResponse response;
+        try {
+            response = client.deleteByQuery(d -> d
+                    .index(indexName)
+                    .query(query)
+                    .conflicts(Conflicts.Proceed)
+                    .refresh(true));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to delete chunks from index " + indexName, e);
+        }
+        long deleted = response.deleted() != null ? response.deleted() : 0;
+        if (!response.failures().isEmpty()) {
+            BulkIndexByScrollFailure failure = response.failures().get(0);
+            throw new IllegalStateException("Failed to delete " + response.failures().size() + " chunk(s) from index "
+                    + indexName + " after deleting " + deleted + ": " + failure.id() + " - "
+                    + failure.cause().reason());
+        }
+        long conflicts = response.versionConflicts() != null ? response.versionConflicts() : 0;
+        if (conflicts > 0) {
+            throw new IllegalStateException(conflicts + " chunk(s) of index " + indexName
+                    + " were modified concurrently and not deleted, after deleting " + deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Builds an exact match on a string metadata field, using the keyword sub-field created by dynamic mapping.
+     *
+     * @param key metadata key
+     * @param value expected value
+     * @return term query
+     */
+    public static Query metadataTerm(String key, String value) {
+        return Query.of(q -> q.term(t -> t.field(keywordField(key)).value(value)));
+    }
+
+    /**
+     * Builds a match on any of the given values of a string metadata field, using the keyword sub-field
+     * created by dynamic mapping.
+     *
+     * @param key metadata key
+     * @param values accepted values
+     * @return terms query
+     */
+    public static Query metadataTerms(String key, List<String> values) {
+        List<FieldValue> fieldValues = values.stream().map(FieldValue::of).toList();
+        return Query.of(q -> q.terms(t -> t.field(keywordField(key)).terms(v -> v.value(fieldValues))));
+    }
+
+    /**
+     * Returns the keyword sub-field of a string metadata field.
+     *
+     * @param key metadata key
+     * @return field name
+     */
+    private static String keywordField(String key) {
+        return METADATA_PREFIX + key + ".keyword";
+    }
+
+    /**
+     * Source of a chunk restricted to its embedding.
+     *
+     * @param embedding chunk embedding
+     */
+    record EmbeddingSource(float[] embedding) {
+    }
+}
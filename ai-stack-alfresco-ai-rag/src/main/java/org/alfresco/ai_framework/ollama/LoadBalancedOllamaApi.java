@@ -0,0 +1,190 @@
+package org.alfresco.ai_framework.ollama;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ollama client spreading the requests of the chat and embedding models over an {@link OllamaNodePool}.
+ * Inference requests go to one node selected for the requested model; model management requests
+ * (pull, copy, delete) are sent to every node serving the model, so the model manager prepares all of them.
+ * Model listing and pulls skip ejected nodes and tolerate failing ones.
+ */
+@Slf4j
+public class LoadBalancedOllamaApi extends OllamaApi {
+
+    private final OllamaNodePool pool;
+
+    /**
+     * Creates the client.
+     *
+     * @param pool pool of Ollama nodes
+     */
+    public LoadBalancedOllamaApi(OllamaNodePool pool) {
+        super(pool.nodes().get(0).url(), RestClient.builder(), WebClient.builder());
+        this.pool = pool;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        return call(chatRequest.model(), api -> api.chat(chatRequest));
+    }
+
+    @Override
+    public Flux<ChatResponse> streamingChat(ChatRequest chatRequest) {
+        return Flux.defer(() -> {
+            OllamaNode node = pool.select(chatRequest.model());
+            node.outstanding().incrementAndGet();
+            return node.api().streamingChat(chatRequest)
+                    .doOnError(e -> pool.recordFailure(node, e))
+                    .doFinally(signal -> node.outstanding().decrementAndGet());
+        });
+    }
+
+    @Override
+    public EmbeddingsResponse embed(EmbeddingsRequest embeddingsRequest) {
+        return call(embeddingsRequest.model(), api -> api.embed(embeddingsRequest));
+    }
+
+    @Override
+    public ShowModelResponse showModel(ShowModelRequest showModelRequest) {
+        return call(showModelRequest.model(), api -> api.showModel(showModelRequest));
+    }
+
+    /**
+     * Lists the models available on every reachable node configured to serve them, so a model missing from one
+     * of its nodes is reported as missing and pulled. Ejected and failing nodes are skipped, so one node being
+     * down does not fail the model checks; they fail only if no node answers.
+     *
+     * @return models ready on all of their reachable nodes
+     */
+    @Override
+    public ListModelResponse listModels() {
+        List<OllamaNode> nodes = new ArrayList<>(pool.nodes().size());
+        List<List<Model>> listed = new ArrayList<>(pool.nodes().size());
+        List<Set<String>> available = new ArrayList<>(pool.nodes().size());
+        RuntimeException lastFailure = null;
+        for (OllamaNode node : pool.nodes()) {
+            if (!node.isAvailable()) {
+                log.debug("Skipping ejected Ollama node {} when listing models", node.url());
+                continue;
+            }
+            List<Model> models;
+            try {
+                models = node.api().listModels().models();
+            } catch (RuntimeException e) {
+                pool.recordFailure(node, e);
+                log.warn("Failed to list the models of Ollama node {}: {}", node.url(), e.getMessage());
+                lastFailure = e;
+                continue;
+            }
+            nodes.add(node);
+            listed.add(models);
+            available.add(models.stream()
+                    .map(model -> OllamaNodePool.normalizeModel(model.name()))
+                    .collect(Collectors.toSet()));
+        }
+        if (nodes.isEmpty()) {
+            throw lastFailure != null ? lastFailure : new IllegalStateException("No Ollama node is available");
+        }
+
+        Set<String> reported = new HashSet<>();
+        List<Model> models = new ArrayList<>();
+        for (List<Model> nodeModels : listed) {
+            for (Model model : nodeModels) {
+                String name = OllamaNodePool.normalizeModel(model.name());
+                if (reported.add(name) && availableOnAllNodes(nodes, available, name)) {
+                    models.add(model);
+                }
+            }
+        }
+        return new ListModelResponse(models);
+    }
+
+    /**
+     * Tells whether a model is available on every node configured to serve it.
+     *
+     * @param nodes nodes that listed their models
+     * @param available normalised names of the models available on each node
+     * @param model normalised model name
+     * @return true if no node serving the model lacks it
+     */
+    private static boolean availableOnAllNodes(List<OllamaNode> nodes, List<Set<String>> available, String model) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i).serves(model) && !available.get(i).contains(model)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ResponseEntity<Void> copyModel(CopyModelRequest copyModelRequest) {
+        ResponseEntity<Void> response = null;
+        for (OllamaNode node : pool.nodesServing(copyModelRequest.source())) {
+            response = node.api().copyModel(copyModelRequest);
+        }
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<Void> deleteModel(DeleteModelRequest deleteModelRequest) {
+        ResponseEntity<Void> response = null;
+        for (OllamaNode node : pool.nodesServing(deleteModelRequest.model())) {
+            response = node.api().deleteModel(deleteModelRequest);
+        }
+        return response;
+    }
+
+    /**
+     * Pulls the model on every available node serving it, one node after another. A failing node is ejected
+     * and skipped, so the other nodes are still prepared; the pull fails only if it failed on every node.
+     *
+     * @param pullModelRequest pull request
+     * @return progress of all pulls
+     */
+    @Override
+    public Flux<ProgressResponse> pullModel(PullModelRequest pullModelRequest) {
+        List<OllamaNode> nodes = pool.availableNodesServing(pullModelRequest.model());
+        AtomicInteger failed = new AtomicInteger();
+        return Flux.fromIterable(nodes)
+                .concatMap(node -> node.api().pullModel(pullModelRequest)
+                        .onErrorResume(e -> {
+                            pool.recordFailure(node, e);
+                            log.warn("Failed to pull model {} on Ollama node {}: {}",
+                                    pullModelRequest.model(), node.url(), e.getMessage());
+                            return failed.incrementAndGet() < nodes.size() ? Flux.empty() : Flux.error(e);
+                        }));
+    }
+
+    /**
+     * Sends a blocking request to the node selected for the model, tracking it as outstanding.
+     *
+     * @param model requested model
+     * @param request the request
+     * @return response of the node
+     */
+    private <T> T call(String model, Function<OllamaApi, T> request) {
+        OllamaNode node = pool.select(model);
+        node.outstanding().incrementAndGet();
+        try {
+            return request.apply(node.api());
+        } catch (RuntimeException e) {
+            pool.recordFailure(node, e);
+            throw e;
+        } finally {
+            node.outstanding().decrementAndGet();
+        }
+    }
+}
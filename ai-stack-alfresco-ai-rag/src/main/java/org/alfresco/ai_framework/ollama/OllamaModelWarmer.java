@@ -0,0 +1,299 @@
+package org.alfresco.ai_framework.ollama;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the chat and embedding models loaded on every Ollama node serving them.
+ * Once the application is ready, and then periodically, the models loaded on each node are read from
+ * {@code /api/ps}; a model that is not loaded, or that would be unloaded before the next check,
+ * is loaded with an empty request carrying the configured {@code keep_alive}.
+ * This covers the start-up, idle periods and restarts of Ollama, so the first chat does not pay the model load.
+ */
+@Slf4j
+@Component
+public class OllamaModelWarmer {
+
+    private static final String WARM_UP_INPUT = "warm-up";
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d*)?|\\.\\d+)(ns|us|µs|μs|ms|s|m|h)");
+
+    private final OllamaNodePool pool;
+    private final Map<String, ModelKind> models;
+    private final String keepAlive;
+    private final Duration embeddingKeepAlive;
+    private final Duration checkInterval;
+    private final boolean enabled;
+    private final JdkClientHttpRequestFactory processRequestFactory;
+    private final Map<String, RestClient> processClients = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Boolean>> residency = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the warmer.
+     *
+     * @param pool Ollama nodes
+     * @param chatModel chat model to keep loaded
+     * @param embeddingModel embedding model to keep loaded
+     * @param keepAlive how long Ollama keeps a model loaded after the last request, as a Go duration
+     * @param checkInterval how often the loaded models are checked
+     * @param enabled whether models are loaded in advance
+     * @param connectTimeout how long connecting to a node to list its loaded models may take
+     * @param readTimeout how long a node may take to list its loaded models
+     */
+    public OllamaModelWarmer(OllamaNodePool pool,
+                             @Value("${spring.ai.ollama.chat.options.model:qwen3:8b-q4_K_M}") String chatModel,
+                             @Value("${spring.ai.ollama.embedding.options.model:mxbai-embed-large}")
+                             String embeddingModel,
+                             @Value("${ai.ollama.keep-alive:30m}") String keepAlive,
+                             @Value("${ai.ollama.warmup.check-interval:PT1M}") Duration checkInterval,
+                             @Value("${ai.ollama.warmup.enabled:true}") boolean enabled,
+                             @Value("${ai.ollama.warmup.connect-timeout:PT5S}") Duration connectTimeout,
+                             @Value("${ai.ollama.warmup.read-timeout:PT10S}") Duration readTimeout) {
+        this.pool = pool;
+        this.models = new LinkedHashMap<>();
+        this.models.put(chatModel, ModelKind.CHAT);
+        this.models.put(embeddingModel, ModelKind.EMBEDDING);
+        this.keepAlive = keepAlive;
+        // Parsed once, so an invalid value fails the start-up instead of every embedding model load
+        this.embeddingKeepAlive = parseKeepAlive(keepAlive);
+        this.checkInterval = checkInterval;
+        this.enabled = enabled;
+        // A node that accepts connections but never answers would otherwise stall every later check
+        this.processRequestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build());
+        this.processRequestFactory.setReadTimeout(readTimeout);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ollama-model-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts loading the models in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Ollama model warm-up disabled");
+            return;
+        }
+        log.info("Keeping Ollama models {} loaded, keep alive: {}, check interval: {}",
+                models.keySet(), keepAlive, checkInterval);
+        scheduler.scheduleWithFixedDelay(this::warmUp, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns whether each model is loaded on each node serving it, as of the last check.
+     *
+     * @return node URL to model name to loaded flag, empty before the first check
+     */
+    public Map<String, Map<String, Boolean>> residency() {
+        return Map.copyOf(residency);
+    }
+
+    /**
+     * Tells whether warm-up is enabled.
+     *
+     * @return true if models are loaded in advance
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the models kept loaded.
+     *
+     * @return model names
+     */
+    public List<String> models() {
+        return List.copyOf(models.keySet());
+    }
+
+    /**
+     * Checks every node and loads the models that are not loaded or about to be unloaded.
+     */
+    private void warmUp() {
+        for (Map.Entry<String, ModelKind> model : models.entrySet()) {
+            for (OllamaNode node : pool.nodesServing(model.getKey())) {
+                try {
+                    boolean loaded = isLoadedUntilNextCheck(node, model.getKey());
+                    if (!loaded) {
+                        long start = System.currentTimeMillis();
+                        load(node, model.getKey(), model.getValue());
+                        log.info("Loaded model {} on {} in {} ms",
+                                model.getKey(), node.url(), System.currentTimeMillis() - start);
+                        loaded = true;
+                    }
+                    setResident(node, model.getKey(), loaded);
+                } catch (RuntimeException e) {
+                    setResident(node, model.getKey(), false);
+                    log.warn("Failed to load model {} on {}: {}", model.getKey(), node.url(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether a model is loaded on a node and stays loaded at least until the check after next.
+     *
+     * @param node Ollama node
+     * @param model model name
+     * @return true if no load is needed
+     */
+    private boolean isLoadedUntilNextCheck(OllamaNode node, String model) {
+        ProcessList processes = processClients
+                .computeIfAbsent(node.url(), url -> RestClient.builder()
+                        .baseUrl(url)
+                        .requestFactory(processRequestFactory)
+                        .build())
+                .get()
+                .uri("/api/ps")
+                .retrieve()
+                .body(ProcessList.class);
+        if (processes == null || processes.models() == null) return false;
+        String normalized = OllamaNodePool.normalizeModel(model);
+        OffsetDateTime renewBefore = OffsetDateTime.now().plus(checkInterval.multipliedBy(2));
+        for (RunningModel running : processes.models()) {
+            if (normalized.equals(OllamaNodePool.normalizeModel(running.name()))) {
+                return running.expiresAt() == null || expiresAfter(running.expiresAt(), renewBefore);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads a model on a node with an empty request, which Ollama answers once the model is in memory.
+     *
+     * @param node Ollama node
+     * @param model model name
+     * @param kind whether the model is used for chat or embeddings
+     */
+    private void load(OllamaNode node, String model, ModelKind kind) {
+        if (kind == ModelKind.CHAT) {
+            node.api().chat(new OllamaApi.ChatRequest(model, List.of(), false, null, keepAlive, null, null));
+        } else {
+            node.api().embed(new OllamaApi.EmbeddingsRequest(model, List.of(WARM_UP_INPUT),
+                    embeddingKeepAlive, null, null));
+        }
+    }
+
+    private void setResident(OllamaNode node, String model, boolean resident) {
+        residency.computeIfAbsent(node.url(), url -> new ConcurrentHashMap<>()).put(model, resident);
+    }
+
+    /**
+     * Compares the expiry reported by Ollama with a deadline. Ollama reports a far-future expiry
+     * for models kept loaded forever.
+     *
+     * @param expiresAt expiry reported by {@code /api/ps}
+     * @param deadline time the model has to stay loaded until
+     * @return true if the model stays loaded past the deadline, or if the expiry cannot be parsed
+     */
+    private static boolean expiresAfter(String expiresAt, OffsetDateTime deadline) {
+        try {
+            return OffsetDateTime.parse(expiresAt).isAfter(deadline);
+        } catch (DateTimeParseException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Parses an Ollama keep-alive value: a number of seconds such as {@code 300} or {@code -1}, or a Go duration
+     * such as {@code 30m}, {@code 1h30m} or {@code 1.5h}, optionally signed.
+     *
+     * @param keepAlive keep-alive value
+     * @return keep-alive duration, negative to keep the model loaded forever
+     * @throws IllegalArgumentException if the value is not a valid keep-alive
+     */
+    static Duration parseKeepAlive(String keepAlive) {
+        String value = keepAlive.strip();
+        if (value.matches("[-+]?\\d+")) return Duration.ofSeconds(Long.parseLong(value));
+        boolean negative = value.startsWith("-");
+        String parts = negative || value.startsWith("+") ? value.substring(1) : value;
+        Matcher matcher = DURATION_PART.matcher(parts);
+        BigDecimal nanos = BigDecimal.ZERO;
+        int end = 0;
+        while (end < parts.length() && matcher.find(end) && matcher.start() == end) {
+            BigDecimal unit = BigDecimal.valueOf(unitNanos(matcher.group(2)));
+            nanos = nanos.add(new BigDecimal(matcher.group(1)).multiply(unit));
+            end = matcher.end();
+        }
+        if (end == 0 || end != parts.length()) {
+            throw new IllegalArgumentException("Invalid keep alive: " + keepAlive);
+        }
+        Duration duration = Duration.ofNanos(nanos.longValue());
+        return negative ? duration.negated() : duration;
+    }
+
+    /**
+     * Returns the length of a Go duration unit.
+     *
+     * @param unit unit of a duration part
+     * @return nanoseconds per unit
+     */
+    private static long unitNanos(String unit) {
+        return switch (unit) {
+            case "ns" -> 1L;
+            case "us", "µs", "μs" -> TimeUnit.MICROSECONDS.toNanos(1);
+            case "ms" -> TimeUnit.MILLISECONDS.toNanos(1);
+            case "s" -> TimeUnit.SECONDS.toNanos(1);
+            case "m" -> TimeUnit.MINUTES.toNanos(1);
+            default -> TimeUnit.HOURS.toNanos(1);
+        };
+    }
+
+    /**
+     * Stops the periodic checks.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * How a model is used, which decides the request loading it.
+     */
+    private enum ModelKind { CHAT, EMBEDDING }
+
+    /**
+     * Response of {@code /api/ps}.
+     *
+     * @param models models loaded in memory
+     */
+    record ProcessList(List<RunningModel> models) {
+    }
+
+    /**
+     * A model loaded in memory.
+     *
+     * @param name model name
+     * @param expiresAt time the model is unloaded unless used
+     */
+    record RunningModel(String name, @JsonProperty("expires_at") String expiresAt) {
+    }
+}
@@ -0,0 +1,55 @@
+package org.alfresco.ai_framework.ollama;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports whether the chat and embedding models are loaded on at least one available Ollama node serving them.
+ * Included in the readiness group, so the service is ready only once every model can be served without a load.
+ */
+@Component
+public class OllamaModelsHealthIndicator implements HealthIndicator {
+
+    private final OllamaModelWarmer warmer;
+    private final OllamaNodePool pool;
+
+    public OllamaModelsHealthIndicator(OllamaModelWarmer warmer, OllamaNodePool pool) {
+        this.warmer = warmer;
+        this.pool = pool;
+    }
+
+    /**
+     * Reports UP when every model is loaded on at least one node that is not ejected, OUT_OF_SERVICE otherwise.
+     * A node still loading a model, or ejected, only shows in the details. Always UP when warm-up is disabled.
+     *
+     * @return health with the loaded state of every model on every node
+     */
+    @Override
+    public Health health() {
+        if (!warmer.isEnabled()) {
+            return Health.up().withDetail("warmup", "disabled").build();
+        }
+        Map<String, Map<String, Boolean>> residency = warmer.residency();
+        Map<String, Integer> readyNodes = new LinkedHashMap<>();
+        for (String model : warmer.models()) {
+            int ready = 0;
+            for (OllamaNode node : pool.nodesServing(model)) {
+                Map<String, Boolean> nodeModels = residency.get(node.url());
+                if (node.isAvailable() && nodeModels != null && Boolean.TRUE.equals(nodeModels.get(model))) {
+                    ready++;
+                }
+            }
+            readyNodes.put(model, ready);
+        }
+        boolean allReady = readyNodes.values().stream().allMatch(count -> count > 0);
+        return Health.status(allReady ? Status.UP : Status.OUT_OF_SERVICE)
+                .withDetail("readyNodes", readyNodes)
+                .withDetail("models", residency)
+                .build();
+    }
+}
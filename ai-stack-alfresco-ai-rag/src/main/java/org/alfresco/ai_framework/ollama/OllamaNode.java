@@ -0,0 +1,85 @@
+package org.alfresco.ai_framework.ollama;
+
+import org.springframework.ai.ollama.api.OllamaApi;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one Ollama node in the {@link OllamaNodePool}.
+ */
+class OllamaNode {
+
+    private final String url;
+    private final Set<String> models;
+    private final OllamaApi api;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong ejectedUntilNanos = new AtomicLong();
+    private volatile boolean ejected;
+
+    /**
+     * Creates a node.
+     *
+     * @param url base URL of the node
+     * @param models normalised names of the served models, empty if the node serves every model
+     * @param api client of the node
+     */
+    OllamaNode(String url, Set<String> models, OllamaApi api) {
+        this.url = url;
+        this.models = models;
+        this.api = api;
+    }
+
+    String url() {
+        return url;
+    }
+
+    OllamaApi api() {
+        return api;
+    }
+
+    AtomicInteger outstanding() {
+        return outstanding;
+    }
+
+    /**
+     * Tells whether the node is configured to serve a model.
+     *
+     * @param model normalised model name, null for any model
+     * @return true if the node serves the model
+     */
+    boolean serves(String model) {
+        return model == null || models.isEmpty() || models.contains(model);
+    }
+
+    /**
+     * Tells whether the node receives requests.
+     *
+     * @return false while the node is ejected
+     */
+    boolean isAvailable() {
+        return !ejected || System.nanoTime() - ejectedUntilNanos.get() >= 0;
+    }
+
+    boolean isEjected() {
+        return ejected;
+    }
+
+    /**
+     * Stops sending requests to the node for the given time.
+     *
+     * @param durationNanos ejection duration
+     */
+    void eject(long durationNanos) {
+        ejectedUntilNanos.set(System.nanoTime() + durationNanos);
+        ejected = true;
+    }
+
+    /**
+     * Sends requests to the node again.
+     */
+    void restore() {
+        ejected = false;
+    }
+}
@@ -0,0 +1,210 @@
+package org.alfresco.ai_framework.ollama;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pool of Ollama nodes. A request for a model goes to the node serving the model with the fewest
+ * outstanding requests. A node failing with a connection error or a 5xx response is ejected for a while;
+ * every node is probed periodically, so ejected nodes return as soon as they answer again.
+ */
+@Slf4j
+public class OllamaNodePool implements AutoCloseable {
+
+    /**
+     * Status prefix of the errors thrown by the response error handler of {@link OllamaApi} on the blocking path,
+     * which reports non-2xx responses as a plain {@link RuntimeException} with a {@code [status] reason - body}
+     * message.
+     */
+    private static final Pattern OLLAMA_ERROR_STATUS = Pattern.compile("^\\[(\\d{3})]");
+
+    private final List<OllamaNode> nodes;
+    private final long ejectionNanos;
+    private final ScheduledExecutorService healthChecks;
+
+    /**
+     * Creates the pool and starts the health checks.
+     *
+     * @param nodes nodes of the pool
+     * @param healthCheckInterval how often every node is probed
+     * @param ejectionDuration how long a failed node receives no requests
+     * @param meterRegistry registry exposing outstanding requests and availability of every node
+     */
+    OllamaNodePool(List<OllamaNode> nodes, Duration healthCheckInterval, Duration ejectionDuration,
+                   MeterRegistry meterRegistry) {
+        this.nodes = List.copyOf(nodes);
+        this.ejectionNanos = ejectionDuration.toNanos();
+        for (OllamaNode node : this.nodes) {
+            Gauge.builder("ai.ollama.node.outstanding", node, n -> n.outstanding().get())
+                    .tag("node", node.url())
+                    .register(meterRegistry);
+            Gauge.builder("ai.ollama.node.available", node, n -> n.isAvailable() ? 1 : 0)
+                    .tag("node", node.url())
+                    .register(meterRegistry);
+        }
+        this.healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ollama-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = healthCheckInterval.toMillis();
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Selects the node for a request: the available node serving the model with the fewest outstanding
+     * requests, ties broken at random. If every such node is ejected, the least loaded of them is used.
+     *
+     * @param model requested model, null for any model
+     * @return selected node
+     * @throws IllegalStateException if no node serves the model
+     */
+    OllamaNode select(String model) {
+        String normalized = model != null ? normalizeModel(model) : null;
+        List<OllamaNode> candidates = new ArrayList<>(nodes.size());
+        for (OllamaNode node : nodes) {
+            if (node.serves(normalized)) candidates.add(node);
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("No Ollama node serves model " + model);
+        }
+        List<OllamaNode> available = candidates.stream().filter(OllamaNode::isAvailable).toList();
+        List<OllamaNode> pool = available.isEmpty() ? candidates : available;
+        int offset = ThreadLocalRandom.current().nextInt(pool.size());
+        OllamaNode selected = null;
+        for (int i = 0; i < pool.size(); i++) {
+            OllamaNode node = pool.get((offset + i) % pool.size());
+            if (selected == null || node.outstanding().get() < selected.outstanding().get()) {
+                selected = node;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the nodes serving a model.
+     *
+     * @param model requested model
+     * @return nodes configured for the model, available or not
+     */
+    List<OllamaNode> nodesServing(String model) {
+        String normalized = normalizeModel(model);
+        return nodes.stream().filter(node -> node.serves(normalized)).toList();
+    }
+
+    /**
+     * Returns the nodes serving a model that currently receive requests, or all nodes serving the model
+     * if every one of them is ejected.
+     *
+     * @param model requested model
+     * @return available nodes configured for the model
+     */
+    List<OllamaNode> availableNodesServing(String model) {
+        List<OllamaNode> serving = nodesServing(model);
+        List<OllamaNode> available = serving.stream().filter(OllamaNode::isAvailable).toList();
+        return available.isEmpty() ? serving : available;
+    }
+
+    /**
+     * Returns all nodes of the pool.
+     *
+     * @return nodes
+     */
+    List<OllamaNode> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Records a failed request, ejecting the node if the failure means the node is unreachable or broken.
+     *
+     * @param node node the request was sent to
+     * @param failure failure of the request
+     */
+    void recordFailure(OllamaNode node, Throwable failure) {
+        if (isNodeFailure(failure) && !node.isEjected()) {
+            node.eject(ejectionNanos);
+            log.warn("Ejected Ollama node {} after failure: {}", node.url(), failure.getMessage());
+        }
+    }
+
+    /**
+     * Probes every node by listing its models, ejecting nodes that fail and restoring nodes that answer.
+     */
+    private void checkHealth() {
+        for (OllamaNode node : nodes) {
+            try {
+                node.api().listModels();
+                if (node.isEjected()) {
+                    node.restore();
+                    log.info("Ollama node {} is healthy again", node.url());
+                }
+            } catch (RuntimeException e) {
+                recordFailure(node, e);
+            }
+        }
+    }
+
+    /**
+     * Tells whether a failure is caused by the node rather than by the request.
+     *
+     * @param failure failure of a request
+     * @return true for connection errors and 5xx responses
+     */
+    static boolean isNodeFailure(Throwable failure) {
+        return failure instanceof ResourceAccessException
+                || failure instanceof HttpServerErrorException
+                || failure instanceof WebClientRequestException
+                || failure instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError()
+                || failure.getClass() == RuntimeException.class && isServerErrorMessage(failure.getMessage());
+    }
+
+    /**
+     * Tells whether the message of an {@link OllamaApi} error reports a 5xx response.
+     *
+     * @param message error message
+     * @return true if the message starts with a 5xx status
+     */
+    private static boolean isServerErrorMessage(String message) {
+        if (message == null) {
+            return false;
+        }
+        Matcher matcher = OLLAMA_ERROR_STATUS.matcher(message);
+        return matcher.find() && matcher.group(1).charAt(0) == '5';
+    }
+
+    /**
+     * Normalises a model name the way Ollama does, adding the implicit {@code latest} tag.
+     *
+     * @param model model name
+     * @return model name with a tag
+     */
+    static String normalizeModel(String model) {
+        String lowerCase = model.strip().toLowerCase(Locale.ROOT);
+        return lowerCase.contains(":") ? lowerCase : lowerCase + ":latest";
+    }
+
+    /**
+     * Stops the health checks.
+     */
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+    }
+}
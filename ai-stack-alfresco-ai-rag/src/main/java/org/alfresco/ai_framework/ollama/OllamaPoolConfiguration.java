@@ -0,0 +1,73 @@
+package org.alfresco.ai_framework.ollama;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the auto-configured single-node Ollama client with a {@link LoadBalancedOllamaApi}
+ * used by both the chat and the embedding model.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(OllamaPoolProperties.class)
+public class OllamaPoolConfiguration {
+
+    /**
+     * Creates the node pool from {@code ai.ollama.pool.nodes}, or from {@code spring.ai.ollama.base-url}
+     * when no node is configured.
+     *
+     * @param properties pool configuration
+     * @param baseUrl base URL of the single default node
+     * @param restClientBuilder builder of the blocking clients, cloned for every node
+     * @param webClientBuilder builder of the streaming clients, cloned for every node
+     * @param meterRegistry registry exposing node metrics
+     * @return node pool
+     */
+    @Bean(destroyMethod = "close")
+    public OllamaNodePool ollamaNodePool(OllamaPoolProperties properties,
+                                         @Value("${spring.ai.ollama.base-url:http://localhost:11434}") String baseUrl,
+                                         ObjectProvider<RestClient.Builder> restClientBuilder,
+                                         ObjectProvider<WebClient.Builder> webClientBuilder,
+                                         MeterRegistry meterRegistry) {
+        List<OllamaPoolProperties.Node> configured = properties.nodes().isEmpty()
+                ? List.of(new OllamaPoolProperties.Node(baseUrl, List.of()))
+                : properties.nodes();
+        RestClient.Builder restClient = restClientBuilder.getIfAvailable(RestClient::builder);
+        WebClient.Builder webClient = webClientBuilder.getIfAvailable(WebClient::builder);
+        List<OllamaNode> nodes = new ArrayList<>(configured.size());
+        for (OllamaPoolProperties.Node node : configured) {
+            Set<String> models = node.models().stream()
+                    .map(OllamaNodePool::normalizeModel)
+                    .collect(Collectors.toUnmodifiableSet());
+            nodes.add(new OllamaNode(node.url(), models,
+                    new OllamaApi(node.url(), restClient.clone(), webClient.clone())));
+            log.info("Ollama node {} serving {}", node.url(), models.isEmpty() ? "all models" : models);
+        }
+        return new OllamaNodePool(nodes, properties.healthCheckInterval(), properties.ejectionDuration(),
+                meterRegistry);
+    }
+
+    /**
+     * Creates the Ollama client injected into the auto-configured chat and embedding models.
+     *
+     * @param ollamaNodePool node pool
+     * @return load-balancing Ollama client
+     */
+    @Bean
+    public OllamaApi ollamaApi(OllamaNodePool ollamaNodePool) {
+        return new LoadBalancedOllamaApi(ollamaNodePool);
+    }
+}
@@ -0,0 +1,31 @@
+package org.alfresco.ai_framework.ollama;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Ollama nodes shared by the chat and embedding models.
+ * Without configured nodes, {@code spring.ai.ollama.base-url} is used as a single node serving every model.
+ *
+ * @param nodes Ollama nodes
+ * @param healthCheckInterval how often every node is probed
+ * @param ejectionDuration how long a failed node receives no requests unless a health check succeeds earlier
+ */
+@ConfigurationProperties(prefix = "ai.ollama.pool")
+public record OllamaPoolProperties(
+        @DefaultValue List<Node> nodes,
+        @DefaultValue("PT10S") Duration healthCheckInterval,
+        @DefaultValue("PT30S") Duration ejectionDuration) {
+
+    /**
+     * An Ollama node.
+     *
+     * @param url base URL of the node
+     * @param models models served by the node, empty if it serves every model
+     */
+    public record Node(String url, @DefaultValue List<String> models) {
+    }
+}
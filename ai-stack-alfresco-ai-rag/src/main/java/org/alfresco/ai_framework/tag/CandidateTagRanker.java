@@ -0,0 +1,121 @@
+package org.alfresco.ai_framework.tag;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.Utils;
+import org.alfresco.ai_framework.embedding.EmbeddingBatchScheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Narrows the candidate tags of a document before they are sent to the zero-shot classifier, whose cost
+ * grows with the number of labels. Candidate tags are embedded once and cached; the tags most similar
+ * to the document embedding are kept, so the classifier sees a bounded number of labels however many
+ * folders the taxonomy contains. Tags are embedded through the interactive lane of the
+ * {@link EmbeddingBatchScheduler}, as the tagging request waits for them, so ingestion neither delays nor rejects them.
+ */
+@Slf4j
+@Component
+public class CandidateTagRanker {
+
+    private final EmbeddingBatchScheduler embeddingBatchScheduler;
+    private final int topK;
+    private final Cache<String, float[]> tagEmbeddings;
+    private final DistributionSummary droppedCandidates;
+
+    /**
+     * Creates the ranker.
+     *
+     * @param embeddingBatchScheduler scheduler embedding the candidate tags
+     * @param topK number of candidate tags sent to the classifier, 0 to send all of them
+     * @param maxEntries maximum number of cached tag embeddings
+     * @param meterRegistry registry exposing the number of dropped candidates and the cache size
+     */
+    public CandidateTagRanker(EmbeddingBatchScheduler embeddingBatchScheduler,
+                              @Value("${ai.tag.candidates.top-k:8}") int topK,
+                              @Value("${ai.tag.candidates.cache.max-entries:10000}") long maxEntries,
+                              MeterRegistry meterRegistry) {
+        this.embeddingBatchScheduler = embeddingBatchScheduler;
+        this.topK = topK;
+        this.tagEmbeddings = Caffeine.newBuilder().maximumSize(maxEntries).build();
+        this.droppedCandidates = DistributionSummary.builder("ai.tag.candidates.dropped").register(meterRegistry);
+        Gauge.builder("ai.tag.candidates.cache.size", tagEmbeddings, Cache::estimatedSize).register(meterRegistry);
+        log.info("Candidate tag ranker initialized, top k: {}", topK > 0 ? topK : "all");
+    }
+
+    /**
+     * Describes the settings the narrowed candidate tags depend on.
+     *
+     * @return number of candidate tags sent to the classifier
+     */
+    public String settings() {
+        return String.valueOf(topK);
+    }
+
+    /**
+     * Tells whether a list of candidate tags is long enough to be narrowed.
+     *
+     * @param candidateTags candidate tags of a document
+     * @return true if more than top k distinct tags are proposed
+     */
+    public boolean shouldRank(List<String> candidateTags) {
+        return topK > 0 && new LinkedHashSet<>(candidateTags).size() > topK;
+    }
+
+    /**
+     * Keeps the candidate tags most similar to the document.
+     *
+     * @param documentEmbedding embedding of the document content
+     * @param candidateTags candidate tags of the document
+     * @return at most top k distinct tags, most similar first
+     */
+    public List<String> rank(float[] documentEmbedding, List<String> candidateTags) {
+        List<String> distinctTags = new ArrayList<>(new LinkedHashSet<>(candidateTags));
+        if (topK <= 0 || distinctTags.size() <= topK) {
+            return distinctTags;
+        }
+        Map<String, float[]> embeddings = embed(distinctTags);
+        Map<String, Double> similarities = new HashMap<>();
+        for (String tag : distinctTags) {
+            similarities.put(tag, Utils.cosineSimilarity(documentEmbedding, embeddings.get(tag)));
+        }
+        List<String> ranked = distinctTags.stream()
+                .sorted(Comparator.comparingDouble((String tag) -> similarities.get(tag)).reversed())
+                .limit(topK)
+                .toList();
+        droppedCandidates.record(distinctTags.size() - ranked.size());
+        log.debug("Candidate tags narrowed from {} to {}: {}", distinctTags.size(), ranked.size(), ranked);
+        return ranked;
+    }
+
+    /**
+     * Returns the embeddings of the tags, embedding the ones missing from the cache in one request.
+     *
+     * @param tags distinct tags
+     * @return embedding of every tag
+     */
+    private Map<String, float[]> embed(List<String> tags) {
+        Map<String, float[]> embeddings = new HashMap<>(tagEmbeddings.getAllPresent(tags));
+        List<String> missing = tags.stream().filter(tag -> !embeddings.containsKey(tag)).toList();
+        if (!missing.isEmpty()) {
+            List<float[]> vectors = embeddingBatchScheduler.embedInteractive(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                embeddings.put(missing.get(i), vectors.get(i));
+                tagEmbeddings.put(missing.get(i), vectors.get(i));
+            }
+            log.debug("Embedded {} new candidate tag(s)", missing.size());
+        }
+        return embeddings;
+    }
+}
@@ -0,0 +1,193 @@
+package org.alfresco.ai_framework.tag;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.Utils;
+import org.alfresco.ai_framework.ingestion.DocumentIndexChangedEvent;
+import org.alfresco.ai_framework.ingestion.VectorIndexOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pl.beone.ai.models.response.TagAnalysisResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Local classifier assigning a document to a folder without calling the external classification pipeline.
+ * Every folder is represented by the centroid of the embeddings of a sample of the chunks indexed with its ID.
+ * When the centroid closest to the document embedding is closer than the runner-up by the configured margin,
+ * the folder is returned as the main tag, together with every folder whose centroid is similar enough to the
+ * document; otherwise the document is left to the pipeline. Public access is not assessed locally, so it is
+ * returned as unknown and the document permissions are left unchanged.
+ * Centroids are cached and rebuilt after the configured TTL or when the folder is deleted from the index;
+ * folders without enough indexed chunks are sampled again on the next request.
+ */
+@Slf4j
+@Component
+public class FolderCentroidClassifier {
+
+    private final VectorIndexOperations vectorIndexOperations;
+    private final boolean enabled;
+    private final double margin;
+    private final double tagSimilarity;
+    private final int sampleSize;
+    private final int minChunks;
+    private final Cache<String, float[]> centroids;
+    private final Counter fastPath;
+    private final Counter fallback;
+
+    /**
+     * Creates the classifier.
+     *
+     * @param vectorIndexOperations native operations on the vector index
+     * @param enabled whether the fast path is used
+     * @param margin minimal difference between the similarities of the best and the second best folder
+     * @param tagSimilarity minimal similarity between the document and a folder centroid for the folder to be
+     *                      returned as an additional tag
+     * @param sampleSize number of chunks sampled to compute a centroid
+     * @param minChunks minimal number of indexed chunks for a folder to have a centroid
+     * @param ttl how long a centroid is reused before it is rebuilt
+     * @param meterRegistry registry exposing fast path and fallback counts
+     */
+    public FolderCentroidClassifier(VectorIndexOperations vectorIndexOperations,
+                                    @Value("${ai.tag.centroid.enabled:true}") boolean enabled,
+                                    @Value("${ai.tag.centroid.margin:0.05}") double margin,
+                                    @Value("${ai.tag.centroid.tag-similarity:0.8}") double tagSimilarity,
+                                    @Value("${ai.tag.centroid.sample-size:200}") int sampleSize,
+                                    @Value("${ai.tag.centroid.min-chunks:5}") int minChunks,
+                                    @Value("${ai.tag.centroid.ttl:PT1H}") Duration ttl,
+                                    MeterRegistry meterRegistry) {
+        this.vectorIndexOperations = vectorIndexOperations;
+        this.enabled = enabled;
+        this.margin = margin;
+        this.tagSimilarity = tagSimilarity;
+        this.sampleSize = sampleSize;
+        this.minChunks = minChunks;
+        this.centroids = Caffeine.newBuilder().expireAfterWrite(ttl).build();
+        this.fastPath = Counter.builder("ai.tag.classification").tag("path", "centroid").register(meterRegistry);
+        this.fallback = Counter.builder("ai.tag.classification").tag("path", "pipeline").register(meterRegistry);
+        log.info("Folder centroid classifier {}, margin: {}, tag similarity: {}, sample size: {}, min chunks: {}",
+                enabled ? "enabled" : "disabled", margin, tagSimilarity, sampleSize, minChunks);
+    }
+
+    /**
+     * Tells whether the fast path is enabled.
+     *
+     * @return true if documents are classified locally when possible
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Describes the settings local classifications depend on.
+     *
+     * @return enablement, margin, tag similarity, sample size and minimal number of chunks
+     */
+    public String settings() {
+        return String.valueOf(enabled) + '|' + margin + '|' + tagSimilarity + '|' + sampleSize + '|' + minChunks;
+    }
+
+    /**
+     * Classifies a document among the candidate folders. Every candidate folder needs a centroid,
+     * otherwise a folder without indexed chunks could never be chosen.
+     *
+     * @param documentEmbedding embedding of the document content
+     * @param candidateFolders IDs of the candidate folders by tag
+     * @return response with the closest folder as the main tag and public access not assessed,
+     * or empty if the document is left to the pipeline
+     */
+    public Optional<TagAnalysisResponse> classify(float[] documentEmbedding, Map<String, String> candidateFolders) {
+        if (!enabled || candidateFolders.isEmpty()) {
+            fallback.increment();
+            return Optional.empty();
+        }
+        String bestTag = null;
+        double best = Double.NEGATIVE_INFINITY;
+        double secondBest = Double.NEGATIVE_INFINITY;
+        Map<String, Double> similarities = new LinkedHashMap<>();
+        for (Map.Entry<String, String> candidate : candidateFolders.entrySet()) {
+            // Missing centroids are not cached, so a folder is sampled again once it has enough chunks
+            float[] centroid = centroids.get(candidate.getValue(), this::computeCentroid);
+            if (centroid == null) {
+                log.debug("Folder {} ({}) has no centroid, falling back to the pipeline",
+                        candidate.getKey(), candidate.getValue());
+                fallback.increment();
+                return Optional.empty();
+            }
+            double similarity = Utils.cosineSimilarity(documentEmbedding, centroid);
+            similarities.put(candidate.getKey(), similarity);
+            if (similarity > best) {
+                secondBest = best;
+                best = similarity;
+                bestTag = candidate.getKey();
+            } else if (similarity > secondBest) {
+                secondBest = similarity;
+            }
+        }
+        if (best - secondBest < margin) {
+            log.debug("Closest folder {} wins by {}, below the margin of {}", bestTag, best - secondBest, margin);
+            fallback.increment();
+            return Optional.empty();
+        }
+        List<String> tags = new ArrayList<>();
+        tags.add(bestTag);
+        for (Map.Entry<String, Double> similarity : similarities.entrySet()) {
+            if (!similarity.getKey().equals(bestTag) && similarity.getValue() >= tagSimilarity) {
+                tags.add(similarity.getKey());
+            }
+        }
+        fastPath.increment();
+        log.debug("Classified locally in folder {}, similarity: {}, runner-up: {}, tags: {}",
+                bestTag, best, secondBest, tags);
+        return Optional.of(new TagAnalysisResponse(tags, bestTag, null, null));
+    }
+
+    /**
+     * Computes the centroid of a folder from a sample of its chunks.
+     *
+     * @param folderId folder ID
+     * @return mean of the normalised chunk embeddings, or null if the folder has too few chunks
+     */
+    private float[] computeCentroid(String folderId) {
+        List<float[]> embeddings = vectorIndexOperations.sampleEmbeddings("folderId", folderId, sampleSize);
+        if (embeddings.size() < minChunks) {
+            return null;
+        }
+        float[] centroid = new float[embeddings.get(0).length];
+        for (float[] embedding : embeddings) {
+            double norm = 0;
+            for (float value : embedding) {
+                norm += value * value;
+            }
+            if (norm == 0 || embedding.length != centroid.length) continue;
+            double scale = 1 / Math.sqrt(norm);
+            for (int i = 0; i < centroid.length; i++) {
+                centroid[i] += (float) (embedding[i] * scale);
+            }
+        }
+        log.debug("Computed centroid of folder {} from {} chunk(s)", folderId, embeddings.size());
+        return centroid;
+    }
+
+    /**
+     * Drops the centroid of a folder removed from the index. Changes to single documents only shift
+     * a centroid slightly, so they are picked up when the centroid expires.
+     *
+     * @param event change of the indexed chunks
+     */
+    @EventListener
+    public void onDocumentIndexChanged(DocumentIndexChangedEvent event) {
+        if ("folderId".equals(event.key())) {
+            centroids.invalidate(event.value());
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package org.alfresco.ai_framework.tag;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.document.Document;
+import org.alfresco.ai_framework.admission.AdmissionRejectedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 import pl.beone.ai.models.response.TagAnalysisResponse;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
 import static org.alfresco.ai_framework.Utils.*;
@@ -25,23 +30,30 @@ import static org.alfresco.ai_framework.Utils.*;
 public class TagController {
     @Autowired
     private TagService tagService;
+    @Autowired
+    private TagTextExtractor tagTextExtractor;
+    @Value("${ai.tag.request-timeout:PT3M}")
+    private Duration requestTimeout;
 
     /**
-     * Handles a document tagging request by transforming the uploaded file,
-     * extracting its textual content, and invoking the AI-based tagging pipeline.
+     * Handles a document tagging request by extracting the textual content of the uploaded file
+     * within the tagging budget, and invoking the AI-based tagging pipeline. The servlet thread is released
+     * while the pipeline classifies the document; the request is answered with 503 after the request timeout.
      *
      * @param documentId unique identifier of the document
      * @param fileName original name of the uploaded file
      * @param file the file to be analyzed
      * @param candidateTags a predefined set of tags suggested for classification
+     * @param candidateFolderIds optional IDs of the folders of the candidate tags, in the same order
      * @return a TagAnalysisResponse encapsulating the result of the AI-driven tagging operation
      */
     @PostMapping("/tags")
-    public ResponseEntity<TagAnalysisResponse> tagDocument(
+    public DeferredResult<ResponseEntity<TagAnalysisResponse>> tagDocument(
             @RequestParam("documentId") String documentId,
             @RequestParam("fileName") String fileName,
             @RequestParam("file") MultipartFile file,
-            @RequestParam("candidateTags") List<String> candidateTags
+            @RequestParam("candidateTags") List<String> candidateTags,
+            @RequestParam(value = "candidateFolderIds", required = false) List<String> candidateFolderIds
     ) {
         try {
             log.info("[REQUEST /tag] Received request on /tag:" +
@@ -49,14 +61,26 @@ public class TagController {
                     "\n     -fileName - " + fileName +
                     "\n     -candidateTags - " + candidateTags
             );
-            List<Document> documents = transformDocument(createFileResource(file));
-            String fileContent = documents.get(0).getFormattedContent();
+            String fileContent = tagTextExtractor.extract(createFileResource(file));
             log.debug("[REQUEST /tag] fileContent: {}", fileContent);
-            TagAnalysisResponse res = tagService.tag(fileName, fileContent, candidateTags);
-            log.info("[REQUEST /tag] response: {}", res);
-            return ResponseEntity.status(HttpStatus.OK).body(res);
+            DeferredResult<ResponseEntity<TagAnalysisResponse>> response =
+                    new DeferredResult<>(requestTimeout.toMillis());
+            Disposable tagging = tagService.tag(fileName, fileContent, candidateTags, candidateFolderIds)
+                    .map(res -> {
+                        log.info("[REQUEST /tag] response: {}", res);
+                        return ResponseEntity.status(HttpStatus.OK).body(res);
+                    })
+                    .onErrorResume(e -> !(e instanceof AdmissionRejectedException), e -> Mono.just(
+                            handleTagException("Failed to tag document: ", e, HttpStatus.INTERNAL_SERVER_ERROR)))
+                    // Rejections are answered with 429/503 and Retry-After by the AdmissionExceptionHandler
+                    .subscribe(response::setResult, response::setErrorResult);
+            // Stops waiting for the pipeline when the request times out or the client disconnects
+            response.onCompletion(tagging::dispose);
+            return response;
         } catch (Exception e) {
-            return handleTagException("Failed to tag document: ", e, HttpStatus.INTERNAL_SERVER_ERROR);
+            DeferredResult<ResponseEntity<TagAnalysisResponse>> response = new DeferredResult<>();
+            response.setResult(handleTagException("Failed to tag document: ", e, HttpStatus.INTERNAL_SERVER_ERROR));
+            return response;
         }
     }
 
@@ -69,7 +93,7 @@ public class TagController {
      * @param status the HTTP status to return
      * @return a response entity with error encapsulated in a TagAnalysisResponse
      */
-    private ResponseEntity<TagAnalysisResponse> handleTagException(String message, Exception e, HttpStatus status) {
+    private ResponseEntity<TagAnalysisResponse> handleTagException(String message, Throwable e, HttpStatus status) {
         log.error("[ErrorHandler TagController] Message: {}, status: {}", message, status, e);
         TagAnalysisResponse tagAnalysisResponse =
                 new TagAnalysisResponse(
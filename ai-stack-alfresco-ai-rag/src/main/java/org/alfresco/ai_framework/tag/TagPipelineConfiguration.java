@@ -0,0 +1,56 @@
+package org.alfresco.ai_framework.tag;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the client of the classification pipeline. Requests are sent without blocking a thread while
+ * the pipeline classifies, over keep-alive connections pooled by the JDK HTTP client; the number of
+ * connections in use is bounded by the tagging bulkhead.
+ */
+@Slf4j
+@Configuration
+public class TagPipelineConfiguration {
+
+    /**
+     * Creates the pipeline client. Requests are observed by the auto-configured builder and published
+     * as {@code http.client.requests}; requests waiting for a pipeline response as {@code ai.tag.pipeline.in-flight}.
+     *
+     * @param webClientBuilder auto-configured builder, cloned
+     * @param baseUrl base URL of the pipeline
+     * @param connectTimeout how long establishing a connection to the pipeline may take
+     * @param meterRegistry registry exposing the in-flight requests
+     * @return pipeline client
+     */
+    @Bean
+    public WebClient tagPipelineWebClient(ObjectProvider<WebClient.Builder> webClientBuilder,
+                                          @Value("${ai.pipeline.url:http://open-webui:8080}") String baseUrl,
+                                          @Value("${ai.pipeline.connect-timeout:PT5S}") Duration connectTimeout,
+                                          MeterRegistry meterRegistry) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder("ai.tag.pipeline.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        log.info("Classification pipeline client for {}, connect timeout: {}", baseUrl, connectTimeout);
+        return webClientBuilder.getIfAvailable(WebClient::builder).clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new JdkClientHttpConnector(httpClient))
+                .filter((request, next) -> next.exchange(request)
+                        .doOnSubscribe(subscription -> inFlight.incrementAndGet())
+                        .doFinally(signal -> inFlight.decrementAndGet()))
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package org.alfresco.ai_framework.tag;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.beone.ai.models.response.TagAnalysisResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Cache of pipeline tagging results. Documents are often tagged again without a content change: moved back from
+ * the retry folder, re-uploaded or updated in their properties only. A result is reused when the file name,
+ * the extracted text, the candidate tags (in any order) with their folders and the classification settings
+ * are the same. Failed analyses are not cached, nor are local classifications, which depend on the index.
+ */
+@Slf4j
+@Component
+public class TagResultCache {
+
+    private final boolean enabled;
+    private final Cache<String, TagAnalysisResponse> results;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates the cache and registers its metrics in the given meter registry.
+     *
+     * @param enabled whether results are cached
+     * @param maxEntries maximum number of cached results
+     * @param ttl how long a result is reused after the analysis
+     * @param meterRegistry registry exposing hit, miss and size metrics
+     */
+    public TagResultCache(@Value("${ai.tag.result-cache.enabled:true}") boolean enabled,
+                          @Value("${ai.tag.result-cache.max-entries:10000}") long maxEntries,
+                          @Value("${ai.tag.result-cache.ttl:PT24H}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = Counter.builder("ai.tag.result-cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("ai.tag.result-cache.misses").register(meterRegistry);
+        Gauge.builder("ai.tag.result-cache.size", results, Cache::estimatedSize).register(meterRegistry);
+        log.info("Tag result cache {}, max entries: {}, ttl: {}", enabled ? "enabled" : "disabled", maxEntries, ttl);
+    }
+
+    /**
+     * Looks up the result of an earlier analysis.
+     *
+     * @param key key built by {@link #key}
+     * @return cached result marked as cached, or empty on a miss
+     */
+    public Optional<TagAnalysisResponse> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        TagAnalysisResponse cached = results.getIfPresent(key);
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(cached.asCached());
+    }
+
+    /**
+     * Caches the result of an analysis, unless it reports an error.
+     *
+     * @param key key built by {@link #key}
+     * @param result result of the analysis
+     */
+    public void put(String key, TagAnalysisResponse result) {
+        if (enabled && result != null && result.errorMsg() == null) {
+            results.put(key, result);
+        }
+    }
+
+    /**
+     * Builds the content-addressed key of an analysis.
+     *
+     * @param fileName name of the document, sent to the pipeline with the text
+     * @param fileContent extracted text of the document
+     * @param candidateTags suggested tags, in any order
+     * @param candidateFolders IDs of the folders of the suggested tags by tag, possibly empty
+     * @param settings classification settings the result depends on, e.g. model and thresholds
+     * @return hex encoded SHA-256 hash
+     */
+    public static String key(String fileName, String fileContent, List<String> candidateTags,
+                             Map<String, String> candidateFolders, String settings) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, settings);
+            update(digest, String.valueOf(fileName));
+            update(digest, fileContent);
+            TreeSet<String> sortedTags = new TreeSet<>(candidateTags);
+            update(digest, String.valueOf(sortedTags.size()));
+            for (String tag : sortedTags) {
+                update(digest, tag);
+            }
+            for (Map.Entry<String, String> folder : new TreeMap<>(candidateFolders).entrySet()) {
+                update(digest, folder.getKey());
+                update(digest, folder.getValue());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds a value to the digest followed by a separator, so adjacent values cannot be shifted into each other.
+     *
+     * @param digest digest being computed
+     * @param value value to add
+     */
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
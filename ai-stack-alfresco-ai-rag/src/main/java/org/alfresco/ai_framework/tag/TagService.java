@@ -1,57 +1,92 @@
 package org.alfresco.ai_framework.tag;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.alfresco.ai_framework.admission.AdmissionRejectedException;
+import org.alfresco.ai_framework.admission.Bulkhead;
+import org.alfresco.ai_framework.admission.CircuitBreaker;
 import org.apache.commons.lang.StringUtils;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import pl.beone.ai.models.request.PipelineMessage;
 import pl.beone.ai.models.request.PipelineRequest;
 import pl.beone.ai.models.request.TagDocRequest;
 import pl.beone.ai.models.response.TagAnalysisResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for handling document tagging using an external AI pipeline.
  * Supports sending tagging requests, parsing responses, and applying thresholds.
+ * Calls to the pipeline are sent without blocking, admitted through the tagging {@link CircuitBreaker}
+ * and {@link Bulkhead}.
+ * Documents clearly closest to one candidate folder are classified locally by the {@link FolderCentroidClassifier}
+ * without calling the pipeline, and long candidate tag lists are narrowed by the {@link CandidateTagRanker}
+ * before they are sent. Results are reused for unchanged content through the {@link TagResultCache}.
  */
 @Slf4j
 @Service
 public class TagService {
-    @Value("${ai.pipeline.url:http://open-webui:8080}")
-    private String aiPipelineUrl;
     @Value("${ai.pipeline.uri:/api/chat/completions}")
     private String aiPipelineUri;
     @Value("${ai.pipeline.tag.model:classificationPipe}")
     private String aiPipelineTagModel;
     @Value("${ai.pipeline.api.key}")
     private String aiPipelineApiKey;
+    @Value("${ai.pipeline.read-timeout:PT2M}")
+    private Duration aiPipelineReadTimeout;
     @Value("${ai.pipeline.publicly.allowed.threshold:60}")
     private String aiPipelinePubliclyAllowedThresholdString;
     private Double aiPipelinePubliclyAllowedThreshold;
     @Value("${ai.pipeline.taggable.threshold:90}")
     private String aiPipelineTaggableThresholdString;
     private Double aiPipelineTaggableThreshold;
-    private RestTemplate restTemplate;
+    @Autowired
+    @Qualifier("tagBulkhead")
+    private Bulkhead tagBulkhead;
+    @Autowired
+    @Qualifier("tagCircuitBreaker")
+    private CircuitBreaker tagCircuitBreaker;
+    @Autowired
+    @Qualifier("tagPipelineWebClient")
+    private WebClient tagPipelineWebClient;
+    @Autowired
+    private CandidateTagRanker candidateTagRanker;
+    @Autowired
+    private FolderCentroidClassifier folderCentroidClassifier;
+    @Autowired
+    private TagResultCache tagResultCache;
+    @Autowired
+    private EmbeddingModel embeddingModel;
+    @Value("${ai.tag.document-embedding.max-chars:2000}")
+    private int documentEmbeddingMaxChars;
     private ObjectMapper objectMapper;
 
     /**
      * Initializes internal components and parses threshold values from properties.
      */
     @PostConstruct
-    private void init() {
+    void init() {
         objectMapper = new ObjectMapper();
-        restTemplate = new RestTemplate();
         aiPipelinePubliclyAllowedThreshold =
                 aiPipelinePubliclyAllowedThresholdString != null ?
                         Long.parseLong(aiPipelinePubliclyAllowedThresholdString)/100.0 : 0.5 ;
@@ -63,41 +98,230 @@ public class TagService {
     }
 
     /**
-     * Sends a raw tagging request to the external AI pipeline.
+     * Sends a raw tagging request to the external AI pipeline. No thread is blocked while the pipeline classifies;
+     * the tagging bulkhead permit is held until the response is received.
      *
      * @param requestBody the pipeline request to send
-     * @return the raw JSON response string
+     * @return the raw JSON response string, failing with an {@link AdmissionRejectedException} if the circuit
+     * breaker is open or the tagging bulkhead is saturated
      */
-    public String sendTagRequest(PipelineRequest requestBody) {
+    public Mono<String> sendTagRequest(PipelineRequest requestBody) {
+        String body;
         try {
-            HttpHeaders aiPipelineTagHeaders = new HttpHeaders();
-            aiPipelineTagHeaders.setContentType(MediaType.APPLICATION_JSON);
-            if(StringUtils.isNotBlank(aiPipelineApiKey)) {
-                aiPipelineTagHeaders.set("Authorization", "Bearer " + aiPipelineApiKey);
-            }
-            HttpEntity<String> req = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), aiPipelineTagHeaders);
-            ResponseEntity<String> res = restTemplate.postForEntity(aiPipelineUrl + aiPipelineUri, req, String.class);
-            return res.getBody();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            body = objectMapper.writeValueAsString(requestBody);
+        } catch (JsonProcessingException e) {
+            return Mono.error(new RuntimeException(e));
         }
+        return Mono.usingWhen(admit(), permit -> tagPipelineWebClient.post()
+                        .uri(aiPipelineUri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(headers -> {
+                            if (StringUtils.isNotBlank(aiPipelineApiKey)) {
+                                headers.setBearerAuth(aiPipelineApiKey);
+                            }
+                        })
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .timeout(aiPipelineReadTimeout)
+                        .doOnSuccess(response -> tagCircuitBreaker.onSuccess())
+                        .doOnError(e -> {
+                            if (isPipelineFailure(e)) {
+                                tagCircuitBreaker.onFailure();
+                            } else {
+                                tagCircuitBreaker.onIgnored();
+                            }
+                        })
+                        .doOnCancel(tagCircuitBreaker::onIgnored),
+                permit -> Mono.fromRunnable(permit::close));
+    }
+
+    /**
+     * Admits a pipeline call through the circuit breaker, then the tagging bulkhead, so requests are not
+     * queued for a pipeline known to be down. No thread is blocked while waiting for a bulkhead permit.
+     *
+     * @return Mono emitting the bulkhead permit to be closed when the call ends, failing with an
+     * {@link AdmissionRejectedException} if the circuit is open or the bulkhead is saturated
+     */
+    private Mono<Bulkhead.Permit> admit() {
+        return Mono.defer(() -> {
+            tagCircuitBreaker.acquirePermission();
+            return tagBulkhead.acquireAsync()
+                    .doOnError(e -> tagCircuitBreaker.onIgnored())
+                    .doOnCancel(tagCircuitBreaker::onIgnored);
+        });
+    }
+
+    /**
+     * Tells whether a failure is caused by the pipeline rather than by the request.
+     *
+     * @param failure failure of a pipeline call
+     * @return true for connection errors, read timeouts and 5xx responses
+     */
+    private static boolean isPipelineFailure(Throwable failure) {
+        return failure instanceof WebClientRequestException
+                || failure instanceof TimeoutException
+                || failure instanceof WebClientResponseException response
+                && response.getStatusCode().is5xxServerError();
     }
 
     /**
-     * Sends a document to the tagging pipeline and parses the response.
+     * Sends a document to the tagging pipeline and parses the response,
+     * or returns the cached result of an earlier pipeline analysis of the same document.
+     * Failures, including admission rejections, are signalled through the returned Mono.
      *
      * @param fileName name of the document
      * @param fileContent text content of the document
      * @param candidateTags list of suggested tags
-     * @return parsed TagAnalysisResponse
-     * @throws Exception if tagging or parsing fails
+     * @param candidateFolderIds IDs of the folders of the suggested tags, in the same order, or null if unknown
+     * @return parsed TagAnalysisResponse, completed when the pipeline answers
+     */
+    public Mono<TagAnalysisResponse> tag(String fileName, String fileContent, List<String> candidateTags,
+                                         List<String> candidateFolderIds) {
+        return Mono.defer(() -> {
+            Map<String, String> candidateFolders = candidateFolders(candidateTags, candidateFolderIds);
+            String cacheKey = TagResultCache.key(fileName, fileContent, candidateTags, candidateFolders,
+                    classificationSettings());
+            Optional<TagAnalysisResponse> cached = tagResultCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.debug("Reusing the tagging result of {} from the cache", fileName);
+                return Mono.just(cached.get());
+            }
+            return classify(fileName, fileContent, candidateTags, candidateFolders, cacheKey);
+        });
+    }
+
+    /**
+     * Classifies a document locally when possible, otherwise through the tagging pipeline.
+     * The embedding and ranking steps block, so they run on the bounded elastic scheduler.
+     * Only pipeline results are cached: local classifications depend on the folder centroids,
+     * which change as documents are indexed.
+     *
+     * @param fileName name of the document
+     * @param fileContent text content of the document
+     * @param candidateTags list of suggested tags
+     * @param candidateFolders IDs of the folders of the suggested tags by tag, possibly empty
+     * @param cacheKey key of the result in the {@link TagResultCache}
+     * @return parsed TagAnalysisResponse, completed when the pipeline answers
+     */
+    private Mono<TagAnalysisResponse> classify(String fileName, String fileContent, List<String> candidateTags,
+                                               Map<String, String> candidateFolders, String cacheKey) {
+        return Mono.fromCallable(() -> classifyLocally(fileContent, candidateTags, candidateFolders))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(local -> {
+                    if (local.response() != null) {
+                        return Mono.just(local.response());
+                    }
+                    return Mono.<PipelineRequest>fromCallable(
+                                    () -> pipelineRequest(fileName, fileContent, local.candidates()))
+                            .flatMap(this::sendTagRequest)
+                            .switchIfEmpty(Mono.error(
+                                    () -> new IllegalStateException("Empty response from the tagging pipeline")))
+                            .flatMap(tagPipelineResponse -> Mono.fromCallable(
+                                    () -> parseTagResponse(tagPipelineResponse)))
+                            .doOnNext(result -> tagResultCache.put(cacheKey, result));
+                });
+    }
+
+    /**
+     * Classifies a document by the folder centroids when possible, otherwise narrows the candidate tags
+     * sent to the pipeline.
+     *
+     * @param fileContent text content of the document
+     * @param candidateTags list of suggested tags
+     * @param candidateFolders IDs of the folders of the suggested tags by tag, possibly empty
+     * @return the local classification, or the candidate tags to send to the pipeline
+     */
+    private LocalClassification classifyLocally(String fileContent, List<String> candidateTags,
+                                                Map<String, String> candidateFolders) {
+        float[] documentEmbedding = null;
+        if (!candidateFolders.isEmpty() && folderCentroidClassifier.isEnabled()) {
+            try {
+                documentEmbedding = embedDocument(fileContent);
+                Optional<TagAnalysisResponse> classified =
+                        folderCentroidClassifier.classify(documentEmbedding, candidateFolders);
+                if (classified.isPresent()) {
+                    return new LocalClassification(classified.get(), null);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Local classification failed, falling back to the pipeline", e);
+            }
+        }
+
+        List<String> candidates = candidateTags;
+        if (candidateTagRanker.shouldRank(candidateTags)) {
+            try {
+                candidates = candidateTagRanker.rank(
+                        documentEmbedding != null ? documentEmbedding : embedDocument(fileContent), candidateTags);
+            } catch (RuntimeException e) {
+                // Ranking only saves classifier time, so the full list is still a valid request, also when rejected
+                log.warn("Failed to rank candidate tags, sending all {} of them", candidateTags.size(), e);
+            }
+        }
+        return new LocalClassification(null, candidates);
+    }
+
+    /**
+     * Builds the pipeline request classifying a document among the candidate tags.
+     *
+     * @param fileName name of the document
+     * @param fileContent text content of the document
+     * @param candidates candidate tags sent to the pipeline
+     * @return pipeline request
+     * @throws JsonProcessingException if the document cannot be serialized
      */
-    public TagAnalysisResponse tag(String fileName, String fileContent, List<String> candidateTags) throws Exception {
-        TagDocRequest tagDocRequest = new TagDocRequest(fileName, fileContent, candidateTags);
+    private PipelineRequest pipelineRequest(String fileName, String fileContent, List<String> candidates)
+            throws JsonProcessingException {
+        TagDocRequest tagDocRequest = new TagDocRequest(fileName, fileContent, candidates);
         PipelineMessage pipelineMessage = new PipelineMessage("user", objectMapper.writeValueAsString(tagDocRequest));
-        PipelineRequest pipelineRequest = new PipelineRequest(false, aiPipelineTagModel, List.of(pipelineMessage));
-        String tagPipelineResponse = sendTagRequest(pipelineRequest);
-        return parseTagResponse(tagPipelineResponse);
+        return new PipelineRequest(false, aiPipelineTagModel, List.of(pipelineMessage));
+    }
+
+    /**
+     * Describes the settings a tagging result depends on besides the document and its candidate tags.
+     *
+     * @return pipeline model, thresholds, document embedding length, ranking and local classification settings
+     */
+    private String classificationSettings() {
+        return aiPipelineTagModel + '|' + aiPipelineTaggableThreshold + '|' + aiPipelinePubliclyAllowedThreshold
+                + '|' + documentEmbeddingMaxChars + '|' + candidateTagRanker.settings()
+                + '|' + folderCentroidClassifier.settings();
+    }
+
+    /**
+     * Pairs the candidate tags with their folder IDs.
+     *
+     * @param candidateTags list of suggested tags
+     * @param candidateFolderIds IDs of the folders of the suggested tags, in the same order, or null if unknown
+     * @return folder IDs by tag, empty if the folder IDs are missing or do not match the tags
+     */
+    private static Map<String, String> candidateFolders(List<String> candidateTags, List<String> candidateFolderIds) {
+        if (candidateFolderIds == null || candidateFolderIds.isEmpty()) {
+            return Map.of();
+        }
+        if (candidateFolderIds.size() != candidateTags.size()) {
+            log.warn("Got {} candidate folder ID(s) for {} candidate tag(s), ignoring them",
+                    candidateFolderIds.size(), candidateTags.size());
+            return Map.of();
+        }
+        Map<String, String> candidateFolders = new LinkedHashMap<>();
+        for (int i = 0; i < candidateTags.size(); i++) {
+            candidateFolders.putIfAbsent(candidateTags.get(i), candidateFolderIds.get(i));
+        }
+        return candidateFolders;
+    }
+
+    /**
+     * Embeds the beginning of the document content, as a single text, so it is scheduled on the interactive lane.
+     *
+     * @param fileContent text content of the document
+     * @return document embedding
+     */
+    private float[] embedDocument(String fileContent) {
+        String text = fileContent.length() > documentEmbeddingMaxChars
+                ? fileContent.substring(0, documentEmbeddingMaxChars)
+                : fileContent;
+        return embeddingModel.embed(text);
     }
 
     /**
@@ -156,4 +380,11 @@ public class TagService {
         return tagAnalysisResponse;
     }
 
+    /**
+     * Outcome of the local classification steps.
+     *
+     * @param response result of the classification by the folder centroids, or null if the pipeline decides
+     * @param candidates candidate tags to send to the pipeline, if not classified locally
+     */
+    private record LocalClassification(TagAnalysisResponse response, List<String> candidates) {}
 }
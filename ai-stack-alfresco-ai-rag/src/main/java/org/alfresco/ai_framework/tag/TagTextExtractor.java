@@ -0,0 +1,162 @@
+package org.alfresco.ai_framework.tag;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.ai.reader.ExtractedTextFormatter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Extracts the text a document is tagged by, bounded by a character budget.
+ * In {@link Mode#HEAD} mode the budget is the write limit of the Tika content handler, so parsing stops
+ * as soon as it is filled and only the beginning of the file is parsed. In {@link Mode#SPREAD} mode the whole
+ * file is parsed, but only the beginning, a window from the middle part and the end are kept, each taking
+ * a third of the budget.
+ * Unlike ingestion, the text is not split into chunks.
+ */
+@Slf4j
+@Component
+public class TagTextExtractor {
+
+    /**
+     * Part of the document kept for tagging.
+     */
+    public enum Mode {
+        HEAD, SPREAD
+    }
+
+    private static final ExtractedTextFormatter TEXT_FORMATTER = ExtractedTextFormatter.defaults();
+    private static final String SECTION_SEPARATOR = "\n\n[...]\n\n";
+
+    private final int maxChars;
+    private final Mode mode;
+    private final Counter truncated;
+
+    /**
+     * Creates the extractor.
+     *
+     * @param maxChars maximum number of extracted characters
+     * @param mode part of the document kept for tagging
+     * @param meterRegistry registry exposing the number of documents longer than the budget
+     */
+    public TagTextExtractor(@Value("${ai.tag.extraction.max-chars:3200}") int maxChars,
+                            @Value("${ai.tag.extraction.mode:HEAD}") Mode mode,
+                            MeterRegistry meterRegistry) {
+        this.maxChars = maxChars;
+        this.mode = mode;
+        this.truncated = Counter.builder("ai.tag.extraction.truncated").register(meterRegistry);
+        log.info("Tag text extraction mode: {}, max chars: {}", mode, maxChars);
+    }
+
+    /**
+     * Extracts the text of a document within the budget.
+     *
+     * @param resource file to extract
+     * @return extracted text
+     */
+    public String extract(Resource resource) {
+        String source = resource.getFilename() != null ? resource.getFilename() : resource.getDescription();
+        SpreadWriter spread = mode == Mode.SPREAD ? new SpreadWriter() : null;
+        // In HEAD mode Tika stops parsing once its write limit is reached
+        BodyContentHandler handler = spread != null ? new BodyContentHandler(spread) : new BodyContentHandler(maxChars);
+        boolean limitReached = false;
+        try (InputStream stream = resource.getInputStream()) {
+            new AutoDetectParser().parse(stream, handler, new Metadata(), new ParseContext());
+        } catch (IOException | SAXException | TikaException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                if (e instanceof IOException ioException) {
+                    throw new UncheckedIOException("Failed to read " + source, ioException);
+                }
+                throw new IllegalStateException("Failed to extract text from " + source, e);
+            }
+            limitReached = true;
+        }
+        if (spread != null ? spread.isTruncated() : limitReached) {
+            truncated.increment();
+            log.debug("Extracted {} of {} for tagging, budget of {} chars reached", mode, source, maxChars);
+        }
+        return TEXT_FORMATTER.format(spread != null ? spread.text() : handler.toString());
+    }
+
+    /**
+     * Keeps the beginning, a window from the middle part and the end of the text. The length of the text is
+     * unknown until parsing ends, so a window is captured at every power-of-two multiple of the section size
+     * and the one before the last is used, which starts between a quarter and a half of the text.
+     */
+    private class SpreadWriter extends Writer {
+
+        private final int sectionChars = Math.max(1, maxChars / 3);
+        private final StringBuilder head = new StringBuilder();
+        private final StringBuilder tail = new StringBuilder();
+        private StringBuilder whole = new StringBuilder();
+        private StringBuilder middle = new StringBuilder();
+        private StringBuilder previousMiddle = new StringBuilder();
+        private long length;
+        private long middleStart;
+        private long nextMiddleStart = sectionChars;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (length == nextMiddleStart) {
+                    previousMiddle = middle;
+                    middle = new StringBuilder();
+                    middleStart = length;
+                    nextMiddleStart *= 2;
+                }
+                char c = cbuf[i];
+                if (length < sectionChars) {
+                    head.append(c);
+                } else if (length - middleStart < sectionChars) {
+                    middle.append(c);
+                }
+                tail.append(c);
+                length++;
+            }
+            if (tail.length() > 2 * sectionChars) {
+                tail.delete(0, tail.length() - sectionChars);
+            }
+            if (whole != null) {
+                if (length > maxChars) {
+                    whole = null;
+                } else {
+                    whole.append(cbuf, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        boolean isTruncated() {
+            return whole == null;
+        }
+
+        String text() {
+            if (whole != null) {
+                return whole.toString();
+            }
+            String end = tail.substring(Math.max(0, tail.length() - sectionChars));
+            return head + SECTION_SEPARATOR + previousMiddle + SECTION_SEPARATOR + end;
+        }
+    }
+}
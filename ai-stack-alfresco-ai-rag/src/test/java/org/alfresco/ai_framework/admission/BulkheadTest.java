@@ -0,0 +1,181 @@
+package org.alfresco.ai_framework.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the {@link Bulkhead} admission of blocking and non-blocking callers.
+ */
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectsWithTooManyRequestsWhenQueueIsFull() throws Exception {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire();
+        Disposable waiter = bulkhead.acquireAsync().subscribe(Bulkhead.Permit::close);
+        await(() -> queueDepth() == 1);
+
+        assertThatThrownBy(bulkhead::acquire)
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(status(e)).isEqualTo(429));
+        assertThatThrownBy(() -> bulkhead.acquireAsync().block())
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(status(e)).isEqualTo(429));
+
+        waiter.dispose();
+        permit.close();
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableWhenWaitTimesOut() {
+        Bulkhead bulkhead = bulkhead(1, 2, Duration.ofMillis(100));
+        Bulkhead.Permit permit = bulkhead.acquire();
+
+        assertThatThrownBy(bulkhead::acquire)
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(status(e)).isEqualTo(503));
+        assertThatThrownBy(() -> bulkhead.acquireAsync().block())
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(status(e)).isEqualTo(503));
+        assertThat(queueDepth()).isZero();
+
+        permit.close();
+        bulkhead.acquire(Duration.ZERO).close();
+    }
+
+    @Test
+    void grantsPermitsInArrivalOrderAcrossBlockingAndAsyncWaiters() throws Exception {
+        Bulkhead bulkhead = bulkhead(1, 10, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> blocking = new ArrayList<>();
+
+        bulkhead.acquireAsync().subscribe(granted -> {
+            order.add("async-1");
+            granted.close();
+        });
+        await(() -> queueDepth() == 1);
+        blocking.add(executor.submit(() -> {
+            try (Bulkhead.Permit granted = bulkhead.acquire()) {
+                order.add("blocking-2");
+            }
+        }));
+        await(() -> queueDepth() == 2);
+        bulkhead.acquireAsync().subscribe(granted -> {
+            order.add("async-3");
+            granted.close();
+        });
+        await(() -> queueDepth() == 3);
+        blocking.add(executor.submit(() -> {
+            try (Bulkhead.Permit granted = bulkhead.acquire()) {
+                order.add("blocking-4");
+            }
+        }));
+        await(() -> queueDepth() == 4);
+
+        permit.close();
+        for (Future<?> future : blocking) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        await(() -> order.size() == 4);
+
+        assertThat(order).containsExactly("async-1", "blocking-2", "async-3", "blocking-4");
+        assertThat(activeCalls()).isZero();
+    }
+
+    @Test
+    void givesReleasedPermitToWaiterBeforeNewCaller() throws Exception {
+        Bulkhead bulkhead = bulkhead(1, 10, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire();
+        List<Bulkhead.Permit> granted = Collections.synchronizedList(new ArrayList<>());
+        bulkhead.acquireAsync().subscribe(granted::add);
+        await(() -> queueDepth() == 1);
+
+        permit.close();
+
+        assertThat(granted).hasSize(1);
+        assertThatThrownBy(() -> bulkhead.acquire(Duration.ZERO))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(status(e)).isEqualTo(503));
+        granted.get(0).close();
+    }
+
+    @Test
+    void releasesQueueSlotAndPermitWhenAsyncWaitIsCancelled() throws Exception {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire();
+        AtomicBoolean granted = new AtomicBoolean();
+        Disposable waiter = bulkhead.acquireAsync().subscribe(cancelled -> granted.set(true));
+        await(() -> queueDepth() == 1);
+
+        waiter.dispose();
+        await(() -> queueDepth() == 0);
+        permit.close();
+
+        assertThat(granted.get()).isFalse();
+        assertThat(activeCalls()).isZero();
+        bulkhead.acquire(Duration.ZERO).close();
+    }
+
+    @Test
+    void releasesPermitOnceWhenClosedTwice() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit permit = bulkhead.acquire();
+
+        permit.close();
+        permit.close();
+
+        Bulkhead.Permit next = bulkhead.acquire(Duration.ZERO);
+        assertThatThrownBy(() -> bulkhead.acquire(Duration.ZERO)).isInstanceOf(AdmissionRejectedException.class);
+        next.close();
+    }
+
+    private Bulkhead bulkhead(int maxConcurrent, int maxQueue, Duration maxWait) {
+        return new Bulkhead("test", maxConcurrent, maxQueue, maxWait, meterRegistry);
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("ai.admission.queue.depth").gauge().value();
+    }
+
+    private double activeCalls() {
+        return meterRegistry.get("ai.admission.active").gauge().value();
+    }
+
+    private static int status(Throwable rejection) {
+        return new AdmissionExceptionHandler().handleRejection((AdmissionRejectedException) rejection)
+                .getStatusCode().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition met in time").isNegative();
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.alfresco.ai_framework.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the state transitions of the {@link CircuitBreaker}.
+ */
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsWithServiceUnavailable() {
+        CircuitBreaker breaker = breaker(2);
+
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquirePermission)
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(((AdmissionRejectedException) e).getReason())
+                        .isEqualTo(AdmissionRejectedException.Reason.CIRCUIT_OPEN))
+                .satisfies(e -> assertThat(new AdmissionExceptionHandler()
+                        .handleRejection((AdmissionRejectedException) e).getStatusCode().value()).isEqualTo(503));
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        CircuitBreaker breaker = breaker(2);
+
+        fail(breaker);
+        breaker.acquirePermission();
+        breaker.onSuccess();
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void letsSingleTrialCallThroughAfterOpenDurationAndClosesOnSuccess() throws Exception {
+        CircuitBreaker breaker = breaker(1);
+        fail(breaker);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+
+        breaker.acquirePermission();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(AdmissionRejectedException.class);
+
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+    }
+
+    @Test
+    void reopensWhenTrialCallFails() throws Exception {
+        CircuitBreaker breaker = breaker(3);
+        for (int i = 0; i < 3; i++) {
+            fail(breaker);
+        }
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    @Test
+    void letsAnotherTrialCallThroughWhenTrialIsIgnored() throws Exception {
+        CircuitBreaker breaker = breaker(1);
+        fail(breaker);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        breaker.acquirePermission();
+
+        breaker.onIgnored();
+
+        breaker.acquirePermission();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    private static CircuitBreaker breaker(int failureThreshold) {
+        return new CircuitBreaker("test", failureThreshold, OPEN_DURATION, new SimpleMeterRegistry());
+    }
+
+    private static void fail(CircuitBreaker breaker) {
+        breaker.acquirePermission();
+        breaker.onFailure();
+    }
+}
@@ -0,0 +1,134 @@
+package org.alfresco.ai_framework.chat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the coalescing of identical concurrent requests by {@link InFlightRequests}.
+ */
+class InFlightRequestsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InFlightRequests<String, String> requests = new InFlightRequests<>("test", meterRegistry);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void coalescesIdenticalConcurrentRequests() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        Future<String> first = executor.submit(() -> requests.execute("key", () -> {
+            computations.incrementAndGet();
+            computing.countDown();
+            await(finish);
+            return "answer";
+        }));
+        computing.await(5, TimeUnit.SECONDS);
+        Future<String> second = executor.submit(() -> requests.execute("key", () -> {
+            computations.incrementAndGet();
+            return "other";
+        }));
+        await(() -> coalesced() == 1);
+
+        finish.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+        assertThat(computations.get()).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void computesDifferentKeysIndependently() {
+        assertThat(requests.execute("a", () -> "first")).isEqualTo("first");
+        assertThat(requests.execute("b", () -> "second")).isEqualTo("second");
+        assertThat(requests.execute("a", () -> "third")).isEqualTo("third");
+        assertThat(coalesced()).isZero();
+    }
+
+    @Test
+    void failsWaitingRequestsWithFailureOfComputationAndReleasesKey() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<String> first = executor.submit(() -> requests.execute("key", () -> {
+            computing.countDown();
+            await(finish);
+            throw new IllegalStateException("backend down");
+        }));
+        computing.await(5, TimeUnit.SECONDS);
+        Future<String> second = executor.submit(() -> requests.execute("key", () -> "other"));
+        await(() -> coalesced() == 1);
+
+        finish.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("backend down");
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("backend down");
+        assertThat(requests.execute("key", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void keepsKeyInFlightUntilReleased() {
+        AtomicReference<Runnable> release = new AtomicReference<>();
+        assertThat(requests.executeUntilReleased("key", callback -> {
+            release.set(callback);
+            return "stream";
+        })).isEqualTo("stream");
+
+        assertThat(requests.execute("key", () -> "again")).isEqualTo("stream");
+        assertThat(inFlight()).isEqualTo(1.0);
+
+        release.get().run();
+
+        assertThat(inFlight()).isZero();
+        assertThat(requests.execute("key", () -> "again")).isEqualTo("again");
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("ai.chat.coalesced").counter().count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("ai.chat.in-flight").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).as("latch released in time").isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition met in time").isNegative();
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.alfresco.ai_framework.embedding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.alfresco.ai_framework.admission.Bulkhead;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the micro-batching and lane isolation of the {@link EmbeddingBatchScheduler} against a stub model.
+ */
+class EmbeddingBatchSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StubModel model = new StubModel();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<EmbeddingBatchScheduler> schedulers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        model.unblock.countDown();
+        schedulers.forEach(EmbeddingBatchScheduler::close);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sendsTextsOfOneRequestInOneBatchInOrder() {
+        EmbeddingBatchScheduler scheduler = scheduler(64, 200);
+
+        EmbeddingResponse response = scheduler.call(new EmbeddingRequest(List.of("a", "bb", "ccc"), null));
+
+        assertThat(model.batches).containsExactly(List.of("a", "bb", "ccc"));
+        assertThat(response.getResults()).extracting(embedding -> embedding.getOutput()[0])
+                .containsExactly(1f, 2f, 3f);
+    }
+
+    @Test
+    void splitsBatchesAtMaxSize() {
+        EmbeddingBatchScheduler scheduler = scheduler(2, 200);
+
+        EmbeddingResponse response = scheduler.call(
+                new EmbeddingRequest(List.of("a", "bb", "ccc", "dddd", "eeeee"), null));
+
+        assertThat(model.batches).containsExactly(List.of("a", "bb"), List.of("ccc", "dddd"), List.of("eeeee"));
+        assertThat(response.getResults()).extracting(embedding -> embedding.getOutput()[0])
+                .containsExactly(1f, 2f, 3f, 4f, 5f);
+    }
+
+    @Test
+    void neverBatchesInteractiveTextsWithBulkTexts() throws Exception {
+        EmbeddingBatchScheduler scheduler = scheduler(64, 200);
+
+        Future<EmbeddingResponse> bulk = executor.submit(() -> scheduler.call(
+                new EmbeddingRequest(List.of("bulk-1", "bulk-22", "bulk-333"), null)));
+        // Within the wait window of the bulk texts, so both lanes are queued together
+        Thread.sleep(50);
+        List<float[]> queries = scheduler.embedInteractive(List.of("query-1", "query-22"));
+        bulk.get(5, TimeUnit.SECONDS);
+
+        assertThat(queries).extracting(vector -> vector[0]).containsExactly(7f, 8f);
+        assertThat(model.batches).contains(List.of("bulk-1", "bulk-22", "bulk-333"));
+        for (List<String> batch : model.batches) {
+            assertThat(batch.stream().map(text -> text.substring(0, text.indexOf('-'))).distinct().toList())
+                    .as("lanes of batch " + batch)
+                    .hasSize(1);
+        }
+    }
+
+    @Test
+    void embedsQueryWhileBulkBatchesOccupyTheirSenders() throws Exception {
+        EmbeddingBatchScheduler scheduler = scheduler(64, 5);
+        model.block = true;
+        Future<EmbeddingResponse> first = executor.submit(() -> scheduler.call(
+                new EmbeddingRequest(List.of("bulk-1"), null)));
+        await(() -> model.batches.size() == 1);
+        Future<EmbeddingResponse> second = executor.submit(() -> scheduler.call(
+                new EmbeddingRequest(List.of("bulk-22"), null)));
+
+        Future<float[]> query = executor.submit(() -> scheduler.embed("query-1"));
+
+        assertThat(query.get(5, TimeUnit.SECONDS)[0]).isEqualTo(7f);
+        assertThat(first.isDone()).isFalse();
+        model.unblock.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getResult().getOutput()[0]).isEqualTo(6f);
+        assertThat(second.get(5, TimeUnit.SECONDS).getResult().getOutput()[0]).isEqualTo(7f);
+    }
+
+    @Test
+    void failsOnlyTheRequestsOfTheFailedBatch() throws Exception {
+        EmbeddingBatchScheduler scheduler = scheduler(64, 200);
+        model.failing = "bulk-fail";
+
+        Future<EmbeddingResponse> bulk = executor.submit(() -> scheduler.call(
+                new EmbeddingRequest(List.of("bulk-1", "bulk-fail"), null)));
+        float[] query = scheduler.embed("query-1");
+
+        assertThat(query[0]).isEqualTo(7f);
+        assertThatThrownBy(() -> bulk.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("model failed on bulk-fail");
+    }
+
+    private EmbeddingBatchScheduler scheduler(int maxBatchSize, long maxWaitMillis) {
+        Bulkhead bulkhead = new Bulkhead("ingestion", 4, 4, Duration.ofSeconds(5), meterRegistry);
+        EmbeddingBatchScheduler scheduler = new EmbeddingBatchScheduler(model, 8192, maxBatchSize, maxWaitMillis,
+                1, 2, bulkhead, meterRegistry);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition met in time").isNegative();
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Stub model embedding a text as its length, recording the batches it receives. Bulk batches can be held
+     * until released, and a batch containing a given text fails.
+     */
+    private static class StubModel implements EmbeddingModel {
+
+        private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch unblock = new CountDownLatch(1);
+        private volatile boolean block;
+        private volatile String failing;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<String> texts = request.getInstructions();
+            batches.add(texts);
+            if (block && texts.get(0).startsWith("bulk")) {
+                try {
+                    unblock.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing != null && texts.contains(failing)) {
+                throw new IllegalStateException("model failed on " + failing);
+            }
+            List<Embedding> embeddings = new ArrayList<>(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                embeddings.add(new Embedding(new float[] {texts.get(i).length()}, i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.alfresco.ai_framework.ollama;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the {@link OllamaNodePool} and the {@link LoadBalancedOllamaApi} against stub Ollama servers.
+ */
+class OllamaNodePoolTest {
+
+    private final List<StubOllama> stubs = new ArrayList<>();
+    private final List<OllamaNodePool> pools = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        pools.forEach(OllamaNodePool::close);
+        stubs.forEach(StubOllama::stop);
+    }
+
+    @Test
+    void ejectsNodeAnsweringWith5xxAndRestoresItOnceHealthy() throws Exception {
+        StubOllama stub = stub();
+        stub.healthy.set(false);
+        OllamaNode node = node(stub);
+        OllamaNodePool pool = pool(Duration.ofMillis(100), node);
+        LoadBalancedOllamaApi api = new LoadBalancedOllamaApi(pool);
+
+        assertThatThrownBy(() -> api.embed(new OllamaApi.EmbeddingsRequest("model", "text")))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(node.isEjected()).isTrue();
+
+        stub.healthy.set(true);
+        await(() -> !node.isEjected());
+        assertThat(api.embed(new OllamaApi.EmbeddingsRequest("model", "text")).embeddings()).hasSize(1);
+    }
+
+    @Test
+    void doesNotEjectNodeAnsweringWith4xx() throws Exception {
+        StubOllama stub = stub();
+        stub.status.set(404);
+        OllamaNode node = node(stub);
+        LoadBalancedOllamaApi api = new LoadBalancedOllamaApi(pool(Duration.ofHours(1), node));
+
+        assertThatThrownBy(() -> api.embed(new OllamaApi.EmbeddingsRequest("model", "text")))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(node.isEjected()).isFalse();
+    }
+
+    @Test
+    void selectsNodeWithFewestOutstandingRequests() throws Exception {
+        OllamaNode busy = node(stub());
+        OllamaNode idle = node(stub());
+        OllamaNodePool pool = pool(Duration.ofHours(1), busy, idle);
+        busy.outstanding().set(3);
+        idle.outstanding().set(1);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(pool.select("model")).isSameAs(idle);
+        }
+        idle.outstanding().set(5);
+        assertThat(pool.select("model")).isSameAs(busy);
+    }
+
+    @Test
+    void skipsEjectedNodeWhenSelecting() throws Exception {
+        StubOllama failing = stub();
+        failing.healthy.set(false);
+        OllamaNode ejected = node(failing);
+        OllamaNode healthy = node(stub());
+        OllamaNodePool pool = pool(Duration.ofHours(1), ejected, healthy);
+        pool.recordFailure(ejected, new RuntimeException("[500] Internal Server Error - failure"));
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(pool.select("model")).isSameAs(healthy);
+        }
+    }
+
+    @Test
+    void listsModelsWhenOneNodeIsDown() throws Exception {
+        StubOllama failing = stub();
+        failing.healthy.set(false);
+        OllamaNode down = node(failing);
+        OllamaNode up = node(stub());
+        LoadBalancedOllamaApi api = new LoadBalancedOllamaApi(pool(Duration.ofHours(1), down, up));
+
+        assertThat(api.listModels().models()).extracting(OllamaApi.Model::name).containsExactly("model:latest");
+        assertThat(down.isEjected()).isTrue();
+    }
+
+    private StubOllama stub() throws IOException {
+        StubOllama stub = new StubOllama();
+        stubs.add(stub);
+        return stub;
+    }
+
+    private OllamaNode node(StubOllama stub) {
+        return new OllamaNode(stub.url(), Set.of(),
+                new OllamaApi(stub.url(), RestClient.builder(), WebClient.builder()));
+    }
+
+    private OllamaNodePool pool(Duration healthCheckInterval, OllamaNode... nodes) {
+        OllamaNodePool pool = new OllamaNodePool(List.of(nodes), healthCheckInterval, Duration.ofHours(1),
+                new SimpleMeterRegistry());
+        pools.add(pool);
+        return pool;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition met in time").isNegative();
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Stub Ollama server answering the model listing and embedding endpoints, or 500 while unhealthy.
+     */
+    private static class StubOllama {
+
+        private final HttpServer server;
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+        private final AtomicInteger status = new AtomicInteger(200);
+
+        StubOllama() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/api/tags", exchange -> answer(exchange,
+                    "{\"models\":[{\"name\":\"model:latest\",\"model\":\"model:latest\"}]}"));
+            server.createContext("/api/embed", exchange -> answer(exchange,
+                    "{\"model\":\"model\",\"embeddings\":[[0.1,0.2,0.3]]}"));
+            server.start();
+        }
+
+        String url() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        private void answer(com.sun.net.httpserver.HttpExchange exchange, String body) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            int code = healthy.get() ? status.get() : 500;
+            byte[] bytes = (code == 200 ? body : "{\"error\":\"failure\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
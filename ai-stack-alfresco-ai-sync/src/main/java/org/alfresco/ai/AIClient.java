@@ -7,8 +7,11 @@ import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import org.apache.hc.client5.http.impl.classic.BasicHttpClientResponseHandler;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -18,7 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.Map;
 
 /**
  * REST client for interacting with the Alfresco AI service.
@@ -35,6 +38,7 @@ public class AIClient {
     private static final String FILE_PARAM = "file";
     private static final String TAGS_ENDPOINT = "/tags";
     private static final String TAGS_LIST_PARAM = "candidateTags";
+    private static final String TAG_FOLDER_IDS_LIST_PARAM = "candidateFolderIds";
 
     @Value("${alfresco.ai.base.url}")
     private String aiBaseUrl;
@@ -63,11 +67,11 @@ public class AIClient {
      * @param documentId Unique identifier for the document (required)
      * @param fileName Name of the file being uploaded (required)
      * @param inputStream Input stream containing the file data (required)
-     * @param candidateTags List of suggested tags to guide classification
+     * @param candidateTags Suggested tags to guide classification, mapped to the IDs of their folders
      * @return Parsed {@link TagAnalysisResponse} object
      * @throws IOException if the request fails or response parsing encounters an error
      */
-    public TagAnalysisResponse tagDocument(String documentId, String fileName, InputStream inputStream, List<String> candidateTags) throws IOException {
+    public TagAnalysisResponse tagDocument(String documentId, String fileName, InputStream inputStream, Map<String, String> candidateTags) throws IOException {
         try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
             HttpPost httpPost = createTagRequest(documentId, fileName, inputStream, candidateTags);
             return httpClient.execute(httpPost, response -> {
@@ -97,7 +101,7 @@ public class AIClient {
         String encodedDocumentId = URLEncoder.encode(documentId, StandardCharsets.UTF_8);
         try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
             HttpDelete httpDelete = new HttpDelete(aiBaseUrl + DOCUMENTS_ENDPOINT + "?" + DOCUMENT_ID_PARAM + "=" + encodedDocumentId);
-            return httpClient.execute(httpDelete, new BasicHttpClientResponseHandler());
+            return httpClient.execute(httpDelete, AIClient::handleDeleteResponse);
         }
     }
 
@@ -113,10 +117,27 @@ public class AIClient {
         String encodedFolderId = URLEncoder.encode(folderId, StandardCharsets.UTF_8);
         try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
             HttpDelete httpDelete = new HttpDelete(aiBaseUrl + FOLDERS_ENDPOINT + "?" + FOLDER_ID_PARAM + "=" + encodedFolderId);
-            return httpClient.execute(httpDelete, new BasicHttpClientResponseHandler());
+            return httpClient.execute(httpDelete, AIClient::handleDeleteResponse);
         }
     }
 
+    /**
+     * Reads the response of a deletion. The AI service answers 404 when nothing is indexed for the ID,
+     * which means there is nothing left to delete rather than a failure.
+     *
+     * @param response response of the AI service
+     * @return response body
+     * @throws IOException if the deletion failed
+     * @throws ParseException if the response body cannot be read
+     */
+    private static String handleDeleteResponse(ClassicHttpResponse response) throws IOException, ParseException {
+        if (response.getCode() == HttpStatus.SC_NOT_FOUND) {
+            HttpEntity entity = response.getEntity();
+            return entity != null ? EntityUtils.toString(entity) : null;
+        }
+        return new BasicHttpClientResponseHandler().handleResponse(response);
+    }
+
     /**
      * Constructs an HTTP POST request for uploading a document to the AI service.
      *
@@ -148,10 +169,10 @@ public class AIClient {
      * @param documentId Unique identifier for the document
      * @param fileName Name of the document
      * @param inputStream Input stream containing the document content
-     * @param candidateTags List of suggested tags to guide classification
+     * @param candidateTags Suggested tags to guide classification, mapped to the IDs of their folders
      * @return a fully constructed {@link HttpPost} request
      */
-    private HttpPost createTagRequest(String documentId, String fileName, InputStream inputStream, List<String> candidateTags) {
+    private HttpPost createTagRequest(String documentId, String fileName, InputStream inputStream, Map<String, String> candidateTags) {
         HttpPost httpPost = new HttpPost(aiBaseUrl + TAGS_ENDPOINT);
         MultipartEntityBuilder builder = MultipartEntityBuilder.create()
                 .addTextBody(DOCUMENT_ID_PARAM, documentId, ContentType.TEXT_PLAIN)
@@ -162,8 +183,10 @@ public class AIClient {
                         ContentType.APPLICATION_OCTET_STREAM,
                         fileName
                 );
-        candidateTags.forEach(tag -> {
+        // Tags and folder IDs are sent as two lists in the same order
+        candidateTags.forEach((tag, folderId) -> {
             builder.addTextBody(TAGS_LIST_PARAM, tag, ContentType.TEXT_PLAIN);
+            builder.addTextBody(TAG_FOLDER_IDS_LIST_PARAM, folderId, ContentType.TEXT_PLAIN);
         });
         httpPost.setEntity(builder.build());
         return httpPost;
@@ -239,14 +239,18 @@ public class TagContentHandler implements OnNodeCreatedEventHandler, OnNodeUpdat
                 List<String> candidateTags = new ArrayList<>(docTags.keySet());
                 log.debug("[Tag content] Fetched sync folders as candidate tags: " + candidateTags);
                 TagAnalysisResponse tagAnalysisResponse = alfrescoClient.tagDocument(uuid,
-                        nodeResource.getName(), candidateTags);
+                        nodeResource.getName(), docTags);
                 List<String> receivedTags = tagAnalysisResponse.tags();
                 String mainTag = tagAnalysisResponse.mainTag();
                 String mainTagFolderUuid = docTags.get(mainTag);
                 log.debug("[Tag content] Is doc publicly allowed: " + tagAnalysisResponse.publiclyAllowed() +
-                        " tags: " + receivedTags + " target folder: " + mainTag);
+                        " tags: " + receivedTags + " target folder: " + mainTag + " cached: " + tagAnalysisResponse.cached());
                 alfrescoClient.tagDocument(uuid, receivedTags);
-                alfrescoClient.classifyDocument(uuid, tagAnalysisResponse.publiclyAllowed());
+                if (tagAnalysisResponse.publiclyAllowed() != null) {
+                    alfrescoClient.classifyDocument(uuid, tagAnalysisResponse.publiclyAllowed());
+                } else {
+                    log.debug("[Tag content] Public access not assessed, keeping permissions of " + uuid);
+                }
                 String timestampedName = alfrescoClient.appendMarkTimestamp(nodeResource.getName());
                 alfrescoClient.updateNodeDescription(uuid, "Moved to folder: " + mainTag);
                 // TODO: Consider optimizing by moving the document ingestion logic to the /tags request to avoid sending the content twice.
@@ -560,11 +560,11 @@ public class AlfrescoClient {
      *
      * @param uuid the document identifier
      * @param documentName the document name
-     * @param candidateTags list of candidate tags to evaluate
+     * @param candidateTags candidate tags to evaluate, mapped to the IDs of their folders
      * @return the tagging result from the AI service
      * @throws IOException if content retrieval or tagging fails
      */
-    public TagAnalysisResponse tagDocument(String uuid, String documentName, List<String> candidateTags) throws IOException {
+    public TagAnalysisResponse tagDocument(String uuid, String documentName, Map<String, String> candidateTags) throws IOException {
         try (InputStream content = nodesApi.getNodeContent(uuid, true, null, null)
                 .getBody()
                 .getInputStream()) {
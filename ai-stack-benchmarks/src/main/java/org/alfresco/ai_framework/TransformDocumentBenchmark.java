@@ -0,0 +1,56 @@
+package org.alfresco.ai_framework;
+
+import org.alfresco.ai_framework.benchmark.TextFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Utils#transformDocument}, i.e. Tika extraction followed by token chunking,
+ * on generated TXT, PDF and DOCX files with the same text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TransformDocumentBenchmark {
+
+    @Param({"TXT", "PDF", "DOCX"})
+    TextFixtures.Format format;
+
+    /**
+     * Text size in kilobytes (thousands of characters).
+     */
+    @Param({"100", "1000"})
+    int sizeKb;
+
+    private FileSystemResource fixture;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path file = TextFixtures.writeDocument(format, TextFixtures.prose(sizeKb * 1_000));
+        fixture = new FileSystemResource(file);
+    }
+
+    @Benchmark
+    public List<Document> transformDocument() {
+        return Utils.transformDocument(fixture);
+    }
+}
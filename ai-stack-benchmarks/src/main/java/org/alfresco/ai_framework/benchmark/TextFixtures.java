@@ -0,0 +1,127 @@
+package org.alfresco.ai_framework.benchmark;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Deterministic text and document fixtures shared by the benchmarks.
+ */
+public final class TextFixtures {
+
+    /**
+     * Formats of the generated document fixtures.
+     */
+    public enum Format { TXT, PDF, DOCX }
+
+    private static final int PDF_LINE_LENGTH = 90;
+    private static final int PDF_LINES_PER_PAGE = 50;
+
+    private TextFixtures() {
+    }
+
+    /**
+     * Builds text made of sentences of random words, with a paragraph break every few sentences.
+     *
+     * @param length number of characters
+     * @return generated text
+     */
+    public static String prose(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length + 64);
+        while (text.length() < length) {
+            int words = 5 + random.nextInt(20);
+            for (int i = 0; i < words; i++) {
+                int letters = 2 + random.nextInt(9);
+                for (int j = 0; j < letters; j++) {
+                    text.append((char) ('a' + random.nextInt(26)));
+                }
+                text.append(i < words - 1 ? ' ' : '.');
+            }
+            text.append(random.nextInt(8) == 0 ? "\n\n" : " ");
+        }
+        text.setLength(length);
+        return text.toString();
+    }
+
+    /**
+     * Builds text without any paragraph or sentence boundary, e.g. an extracted table or a base64 blob.
+     *
+     * @param length number of characters
+     * @return generated text
+     */
+    public static String unbroken(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append(random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a document of the given format containing the given text to a temporary file.
+     *
+     * @param format document format
+     * @param text text of the document, paragraphs separated by blank lines
+     * @return path of the written file, deleted on exit
+     * @throws IOException if the file cannot be written
+     */
+    public static Path writeDocument(Format format, String text) throws IOException {
+        Path file = Files.createTempFile("benchmark-fixture-", "." + format.name().toLowerCase());
+        file.toFile().deleteOnExit();
+        try (OutputStream out = Files.newOutputStream(file)) {
+            switch (format) {
+                case TXT -> out.write(text.getBytes(StandardCharsets.UTF_8));
+                case PDF -> writePdf(text, out);
+                case DOCX -> writeDocx(text, out);
+            }
+        }
+        return file;
+    }
+
+    private static void writePdf(String text, OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            String flat = text.replace('\n', ' ');
+            int offset = 0;
+            while (offset < flat.length()) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(14);
+                    content.newLineAtOffset(40, 750);
+                    for (int line = 0; line < PDF_LINES_PER_PAGE && offset < flat.length(); line++) {
+                        int end = Math.min(offset + PDF_LINE_LENGTH, flat.length());
+                        content.showText(flat.substring(offset, end));
+                        content.newLine();
+                        offset = end;
+                    }
+                    content.endText();
+                }
+            }
+            document.save(out);
+        }
+    }
+
+    private static void writeDocx(String text, OutputStream out) throws IOException {
+        try (XWPFDocument document = new XWPFDocument()) {
+            for (String paragraph : text.split("\n\n")) {
+                document.createParagraph().createRun().setText(paragraph);
+            }
+            document.write(out);
+        }
+    }
+}
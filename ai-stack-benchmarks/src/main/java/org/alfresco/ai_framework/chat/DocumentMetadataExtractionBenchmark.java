@@ -0,0 +1,63 @@
+package org.alfresco.ai_framework.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.advisor.QuestionAnswerAdvisor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ChatController#extractDocumentMetadata} on chat responses carrying retrieved documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentMetadataExtractionBenchmark {
+
+    /**
+     * Number of retrieved documents attached to the response.
+     */
+    @Param({"5", "50"})
+    int documentCount;
+
+    private ChatResponse response;
+
+    @Setup
+    public void setUp() {
+        List<Document> documents = new ArrayList<>(documentCount);
+        for (int i = 0; i < documentCount; i++) {
+            documents.add(new Document("document-" + i + "_0", "Retrieved chunk " + i, Map.of(
+                    "documentId", "document-" + i,
+                    "folderId", "folder-" + (i % 5),
+                    "fileName", "document-" + i + ".pdf",
+                    "chunkIndex", 0)));
+        }
+        response = new ChatResponse(List.of(new Generation(new AssistantMessage("answer"))),
+                ChatResponseMetadata.builder().keyValue(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS, documents).build());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> extractDocumentMetadata() {
+        return ChatController.extractDocumentMetadata(response);
+    }
+}
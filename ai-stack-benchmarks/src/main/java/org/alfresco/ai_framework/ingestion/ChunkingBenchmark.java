@@ -0,0 +1,53 @@
+package org.alfresco.ai_framework.ingestion;
+
+import org.alfresco.ai_framework.benchmark.TextFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the chunking stage of ingestion on already extracted text:
+ * {@link TokenTextSplitter} followed by {@link DocumentSplitter#splitLargeDocuments}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ChunkingBenchmark {
+
+    /**
+     * Text size in kilobytes (thousands of characters).
+     */
+    @Param({"100", "1000"})
+    int sizeKb;
+
+    private TokenTextSplitter tokenTextSplitter;
+    private List<Document> extracted;
+
+    @Setup
+    public void setUp() {
+        tokenTextSplitter = TokenTextSplitter.builder().build();
+        extracted = List.of(new Document(TextFixtures.prose(sizeKb * 1_000), Map.of("source", "benchmark.txt")));
+    }
+
+    @Benchmark
+    public List<Document> tokenSplitAndSplitLarge() {
+        return DocumentSplitter.splitLargeDocuments(tokenTextSplitter.apply(extracted));
+    }
+}
@@ -0,0 +1,66 @@
+package org.alfresco.ai_framework.ingestion;
+
+import org.alfresco.ai_framework.benchmark.TextFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DocumentSplitter} with {@link LegacyDocumentSplitter} on large extracted texts.
+ * Run with the GC profiler (enabled by default by the benchmark runner) to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DocumentSplitterBenchmark {
+
+    /**
+     * Text size in megabytes (millions of characters).
+     */
+    @Param({"1", "10", "50"})
+    int sizeMb;
+
+    /**
+     * PROSE has paragraph and sentence breaks, UNBROKEN has none, which is the worst case of the backward scan.
+     */
+    @Param({"PROSE", "UNBROKEN"})
+    String shape;
+
+    private List<Document> documents;
+
+    @Setup
+    public void setUp() {
+        String text = "PROSE".equals(shape)
+                ? TextFixtures.prose(sizeMb * 1_000_000)
+                : TextFixtures.unbroken(sizeMb * 1_000_000);
+        documents = List.of(new Document("benchmark-document", text,
+                Map.of("documentId", "benchmark-document", "folderId", "benchmark-folder",
+                        "fileName", "benchmark.txt")));
+    }
+
+    @Benchmark
+    public List<Document> legacy() {
+        return LegacyDocumentSplitter.splitLargeDocuments(documents);
+    }
+
+    @Benchmark
+    public List<Document> current() {
+        return DocumentSplitter.splitLargeDocuments(documents);
+    }
+}
@@ -0,0 +1,53 @@
+package org.alfresco.ai_framework.tag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.beone.ai.models.response.TagAnalysisResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TagService#parseTagResponse} on recorded responses of the classification pipeline
+ * with a few and with many candidate tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagResponseParsingBenchmark {
+
+    @Param({"pipeline-response-5-tags.json", "pipeline-response-200-tags.json"})
+    String payload;
+
+    private TagService tagService;
+    private String rawJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        tagService = new TagService();
+        tagService.init();
+        try (InputStream in = TagResponseParsingBenchmark.class.getResourceAsStream("/tag/" + payload)) {
+            if (in == null) throw new IllegalStateException("Missing recorded payload " + payload);
+            rawJson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public TagAnalysisResponse parseTagResponse() throws Exception {
+        return tagService.parseTagResponse(rawJson);
+    }
+}
@@ -7,7 +7,33 @@ import java.util.List;
  *
  * @param tags the list of all tags assigned to the document, including the main tag if applicable
  * @param mainTag the primary classification label selected by the model
- * @param publiclyAllowed indicates whether the content is suitable for public disclosure based on AI analysis
+ * @param publiclyAllowed indicates whether the content is suitable for public disclosure based on AI analysis,
+ *                        null if public access was not assessed and the document permissions must be left unchanged
  * @param errorMsg an optional message describing any error that occurred during tagging
+ * @param cached indicates whether the result was reused from an earlier analysis of the same content
  */
-public record TagAnalysisResponse(List<String> tags, String mainTag, boolean publiclyAllowed, String errorMsg) {}
+public record TagAnalysisResponse(List<String> tags, String mainTag, Boolean publiclyAllowed, String errorMsg,
+                                  boolean cached) {
+
+    /**
+     * Creates the outcome of a fresh tagging operation.
+     *
+     * @param tags the list of all tags assigned to the document, including the main tag if applicable
+     * @param mainTag the primary classification label selected by the model
+     * @param publiclyAllowed indicates whether the content is suitable for public disclosure based on AI analysis,
+     *                        null if public access was not assessed
+     * @param errorMsg an optional message describing any error that occurred during tagging
+     */
+    public TagAnalysisResponse(List<String> tags, String mainTag, Boolean publiclyAllowed, String errorMsg) {
+        this(tags, mainTag, publiclyAllowed, errorMsg, false);
+    }
+
+    /**
+     * Returns a copy of this outcome marked as reused.
+     *
+     * @return cached copy of the outcome
+     */
+    public TagAnalysisResponse asCached() {
+        return new TagAnalysisResponse(tags, mainTag, publiclyAllowed, errorMsg, true);
+    }
+}
@@ -18,6 +18,7 @@ start() {
     docker volume create ai-stack-db-volume
     docker volume create ai-stack-ass-volume
     docker volume create ai-stack-pipelines-cache-volume
+    docker volume create ai-stack-embedding-cache-volume
     docker compose -f "$COMPOSE_FILE_PATH" up --build -d
 }
 
@@ -44,6 +45,7 @@ purge() {
     docker volume rm -f ai-stack-db-volume
     docker volume rm -f ai-stack-ass-volume
     docker volume rm -f ai-stack-pipelines-cache-volume
+    docker volume rm -f ai-stack-embedding-cache-volume
     docker network rm ai_cloud
 }
 